@@ -0,0 +1,63 @@
+package benchmark;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+
+/**
+ * Positions the game benchmarks run against, one per phase of the game.
+ * <p>
+ * Each position also carries a four move cycle (a white move, a black move, then both
+ * moved back) that returns to the starting position, so makeMove can be measured
+ * repeatedly on one game without rebuilding it between invocations.
+ */
+public enum BenchmarkPosition {
+    /**
+     * Ruy Lopez after 1.e4 e5 2.Nf3 Nc6 3.Bb5 a6
+     */
+    OPENING("r1bqkbnr/1ppp1ppp/p1n5/1B2p3/4P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 0 4",
+            move(3, 6, 1, 7), move(6, 3, 8, 2), move(1, 7, 3, 6), move(8, 2, 6, 3)),
+    MIDDLEGAME("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+            move(1, 6, 1, 5), move(8, 6, 8, 5), move(1, 5, 1, 6), move(8, 5, 8, 6)),
+    ENDGAME("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            move(4, 2, 4, 3), move(5, 8, 6, 8), move(4, 3, 4, 2), move(6, 8, 5, 8));
+
+    private final String fen;
+    private final ChessMove[] cycle;
+
+    BenchmarkPosition(String fen, ChessMove... cycle) {
+        this.fen = fen;
+        this.cycle = cycle;
+    }
+
+    public ChessBoard board() {
+        return ChessBoard.fromFen(fen);
+    }
+
+    public ChessGame game() {
+        return ChessGame.fromFen(fen);
+    }
+
+    public String fen() {
+        return fen;
+    }
+
+    /**
+     * Plays the position's move cycle once, leaving the game back where it started
+     */
+    public void playCycle(ChessGame game) throws InvalidMoveException {
+        for (ChessMove move : cycle) {
+            game.makeMove(move);
+        }
+    }
+
+    public int cycleLength() {
+        return cycle.length;
+    }
+
+    private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+        return new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null);
+    }
+}
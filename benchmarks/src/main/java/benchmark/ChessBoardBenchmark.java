@@ -0,0 +1,64 @@
+package benchmark;
+
+import chess.ChessBoard;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks board setup and the equals/hashCode pair used when games are
+ * compared or kept in hashed collections.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ChessBoardBenchmark {
+    @Param
+    public BenchmarkPosition position;
+
+    private ChessBoard board;
+    private ChessBoard equalBoard;
+    private ChessBoard resetTarget;
+
+    @Setup
+    public void setUp() {
+        board = position.board();
+        // built separately so equals can't take an identity shortcut
+        equalBoard = position.board();
+        resetTarget = new ChessBoard();
+    }
+
+    @Benchmark
+    public ChessBoard resetBoard() {
+        resetTarget.resetBoard();
+        return resetTarget;
+    }
+
+    @Benchmark
+    public boolean equalBoards() {
+        return board.equals(equalBoard);
+    }
+
+    @Benchmark
+    public int boardHashCode() {
+        return board.hashCode();
+    }
+
+    @Benchmark
+    public ChessBoard snapshot() {
+        return board.snapshot();
+    }
+}
@@ -0,0 +1,129 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import chess.PositionCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the ChessGame rule checks the server runs for every move request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ChessGameBenchmark {
+    // each game's move history grows by a cycle per makeMove invocation, so makeMove
+    // starts a fresh game after this many cycles to keep measuring the move itself
+    private static final int CYCLES_PER_GAME = 16;
+
+    @Param
+    public BenchmarkPosition position;
+
+    private ChessGame start;
+    private ChessGame game;
+    private int cyclesPlayed;
+    private ChessGame.TeamColor teamTurn;
+    private List<ChessPosition> piecesToMove;
+    private byte[] encoded;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        start = position.game().snapshot();
+        game = new ChessGame(start);
+        cyclesPlayed = 0;
+        teamTurn = game.getTeamTurn();
+        encoded = PositionCodec.encode(game);
+        piecesToMove = new ArrayList<>();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition square = new ChessPosition(row, col);
+                ChessPiece piece = game.getBoard().getPiece(square);
+                if (piece != null && piece.getTeamColor() == teamTurn) {
+                    piecesToMove.add(square);
+                }
+            }
+        }
+    }
+
+    /**
+     * validMoves for every piece of the team to move, as a client asking for the full move list would
+     */
+    @Benchmark
+    public void validMoves(Blackhole blackhole) {
+        for (ChessPosition square : piecesToMove) {
+            Collection<ChessMove> moves = game.validMoves(square);
+            blackhole.consume(moves);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(4)
+    public ChessGame makeMove() throws InvalidMoveException {
+        if (cyclesPlayed == CYCLES_PER_GAME) {
+            game = new ChessGame(start);
+            cyclesPlayed = 0;
+        }
+        position.playCycle(game);
+        cyclesPlayed++;
+        return game;
+    }
+
+    @Benchmark
+    public boolean isInCheckmate() {
+        return game.isInCheckmate(teamTurn);
+    }
+
+    @Benchmark
+    public boolean isInStalemate() {
+        return game.isInStalemate(teamTurn);
+    }
+
+    @Benchmark
+    public ChessGame.GameStatus gameStatus() {
+        return game.getGameStatus(teamTurn);
+    }
+
+    @Benchmark
+    public String toFen() {
+        return game.toFen();
+    }
+
+    @Benchmark
+    public ChessGame fromFen() {
+        return ChessGame.fromFen(position.fen());
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return PositionCodec.encode(game);
+    }
+
+    @Benchmark
+    public ChessGame decode() {
+        return PositionCodec.decode(encoded);
+    }
+}
@@ -0,0 +1,60 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.InvalidMoveException;
+import chess.MoveHistory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks rebuilding a game from its move history. The score is replayed moves
+ * per second: each invocation replays the 31 moves before the first stored snapshot,
+ * the longest stretch replay ever has to play.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoveHistoryBenchmark {
+    private static final int REPLAYED_MOVES = 31;
+
+    // Morphy vs Duke of Brunswick and Count Isouard, Paris 1858
+    private static final List<String> OPERA_GAME = List.of(
+            "e4", "e5", "Nf3", "d6", "d4", "Bg4", "dxe5", "Bxf3", "Qxf3", "dxe5",
+            "Bc4", "Nf6", "Qb3", "Qe7", "Nc3", "c6", "Bg5", "b5", "Nxb5", "cxb5",
+            "Bxb5+", "Nbd7", "O-O-O", "Rd8", "Rxd7", "Rxd7", "Rd1", "Qe6", "Bxd7+", "Nxd7",
+            "Qb8+", "Nxb8", "Rd8#");
+
+    private MoveHistory history;
+
+    @Setup
+    public void setUp() throws InvalidMoveException {
+        history = MoveHistory.replaySan("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", OPERA_GAME)
+                .getMoveHistory();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REPLAYED_MOVES)
+    public ChessGame replay() {
+        return history.replay(REPLAYED_MOVES);
+    }
+
+    @Benchmark
+    public List<String> toUci() {
+        return history.toUci();
+    }
+}
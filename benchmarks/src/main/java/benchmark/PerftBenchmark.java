@@ -0,0 +1,81 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.Perft;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link Perft}. The primary score is whole trees per second;
+ * the "nodes" counter is leaf nodes per second, the usual perft speed figure.
+ * Node counts are checked on every invocation, so a faster but wrong generator
+ * fails the run instead of reporting a better score.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PerftBenchmark {
+
+    public enum Position {
+        STARTING("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", 4, 197281),
+        KIWIPETE("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", 3, 97862),
+        ROOK_ENDGAME("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 5, 674624);
+
+        private final String fen;
+        private final int depth;
+        private final long nodes;
+
+        Position(String fen, int depth, long nodes) {
+            this.fen = fen;
+            this.depth = depth;
+            this.nodes = nodes;
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Nodes {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+
+    @Param
+    public Position position;
+
+    private Perft perft;
+
+    @Setup
+    public void setUp() {
+        perft = new Perft(ChessGame.fromFen(position.fen));
+    }
+
+    @Benchmark
+    public long perft(Nodes counter) {
+        long nodes = perft.count(position.depth);
+        if (nodes != position.nodes) {
+            throw new IllegalStateException("perft " + position + " counted " + nodes + ", expected " + position.nodes);
+        }
+        counter.nodes += nodes;
+        return nodes;
+    }
+}
@@ -0,0 +1,23 @@
+package dataaccess;
+
+import model.AuthData;
+
+/**
+ * Stores the auth tokens of logged in users
+ */
+public interface AuthDAO {
+
+    void createAuth(AuthData auth) throws DataAccessException;
+
+    /**
+     * @return the token's record, or null if the token isn't valid
+     */
+    AuthData getAuth(String authToken) throws DataAccessException;
+
+    /**
+     * Invalidates a token, as on logout. Deleting a token that doesn't exist does nothing.
+     */
+    void deleteAuth(String authToken) throws DataAccessException;
+
+    void clear() throws DataAccessException;
+}
@@ -0,0 +1,222 @@
+package dataaccess;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces small writes into JDBC batches, so a burst of move saves or auth inserts
+ * costs one round trip and one commit instead of one per row.
+ * <p>
+ * Writes queue up until {@code maxBatchSize} are waiting or the oldest has waited
+ * {@code maxDelayMillis}, then all of them go out in a single transaction on one pooled
+ * connection. Consecutive writes with the same SQL share one prepared statement and
+ * one {@code executeBatch}. Writes are applied in the order they were submitted, and
+ * flushes run one at a time on the writer's own thread.
+ * <p>
+ * Each write's future completes once the transaction holding it has committed. If a
+ * batch is rolled back, its writes are tried again one transaction each on the same
+ * connection, so a bad write fails only its own future, with a
+ * {@link DataAccessException}, and the rest still go in.
+ */
+public class BatchWriter implements AutoCloseable {
+
+    /**
+     * @param maxBatchSize   waiting writes that trigger a flush straight away
+     * @param maxDelayMillis longest a write waits for others to join its batch
+     */
+    public record Settings(int maxBatchSize, long maxDelayMillis) {
+        public Settings {
+            if (maxBatchSize < 1 || maxDelayMillis < 0) {
+                throw new IllegalArgumentException("Invalid batch settings " + maxBatchSize + ", " + maxDelayMillis + "ms");
+            }
+        }
+
+        /**
+         * Reads the {@code db.batch.*} keys, using defaults for any that are missing
+         */
+        public static Settings fromProperties(Properties props) {
+            return new Settings(
+                    Integer.parseInt(props.getProperty("db.batch.maxSize", "100")),
+                    Long.parseLong(props.getProperty("db.batch.maxDelayMillis", "10")));
+        }
+    }
+
+    /**
+     * @param writes       writes committed since the writer started
+     * @param flushes      transactions committed
+     * @param failedWrites writes whose transaction was rolled back
+     */
+    public record Stats(long writes, long flushes, long failedWrites) {
+    }
+
+    private record Write(String sql, Object[] params, CompletableFuture<Void> done) {
+    }
+
+    private final ConnectionPool pool;
+    private final Settings settings;
+    private final ScheduledThreadPoolExecutor flusher;
+
+    private final Object lock = new Object();
+    private List<Write> pending = new ArrayList<>();
+    private boolean closed;
+
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder failedWrites = new LongAdder();
+
+    public BatchWriter(ConnectionPool pool, Settings settings) {
+        this.pool = pool;
+        this.settings = settings;
+        this.flusher = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "batch-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // close runs a final flush of its own, so pending delay timers can be dropped
+        this.flusher.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * Queues a write
+     *
+     * @param sql    an INSERT, UPDATE or DELETE with ? placeholders
+     * @param params values for the placeholders, in order
+     * @return a future that completes once the write has been committed
+     */
+    public CompletableFuture<Void> submit(String sql, Object... params) {
+        Write write = new Write(sql, params.clone(), new CompletableFuture<>());
+        synchronized (lock) {
+            if (closed) {
+                write.done().completeExceptionally(new DataAccessException("Batch writer is closed"));
+                return write.done();
+            }
+            pending.add(write);
+            if (pending.size() == settings.maxBatchSize()) {
+                flusher.execute(this::flushPending);
+            } else if (pending.size() == 1) {
+                flusher.schedule(this::flushPending, settings.maxDelayMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+        return write.done();
+    }
+
+    /**
+     * Sends every queued write now rather than waiting for the batch to fill
+     *
+     * @return a future that completes once every write submitted before this call has
+     * been committed or has failed
+     */
+    public CompletableFuture<Void> flush() {
+        return CompletableFuture.runAsync(this::flushPending, flusher);
+    }
+
+    public Stats stats() {
+        return new Stats(writes.sum(), flushes.sum(), failedWrites.sum());
+    }
+
+    /**
+     * Stops taking writes and waits for the ones already queued to be written
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        flusher.execute(this::flushPending);
+        flusher.shutdown();
+        try {
+            if (!flusher.awaitTermination(30, TimeUnit.SECONDS)) {
+                flusher.shutdownNow();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flushPending() {
+        List<Write> batch;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new ArrayList<>();
+        }
+
+        try (Connection conn = pool.borrow()) {
+            conn.setAutoCommit(false);
+            try {
+                commit(conn, batch);
+            } catch (SQLException | RuntimeException ex) {
+                conn.rollback();
+                if (batch.size() == 1) {
+                    throw ex;
+                }
+                // one bad write rolls back the whole batch, so give each its own transaction
+                for (Write write : batch) {
+                    try {
+                        commit(conn, List.of(write));
+                    } catch (SQLException | RuntimeException single) {
+                        conn.rollback();
+                        fail(List.of(write), single);
+                    }
+                }
+            }
+        } catch (DataAccessException | SQLException | RuntimeException ex) {
+            fail(batch, ex);
+        }
+    }
+
+    /**
+     * Runs writes as one transaction and completes their futures once it has committed
+     */
+    private void commit(Connection conn, List<Write> batch) throws SQLException {
+        int start = 0;
+        while (start < batch.size()) {
+            String sql = batch.get(start).sql();
+            int end = start;
+            try (PreparedStatement statement = conn.prepareStatement(sql)) {
+                while (end < batch.size() && batch.get(end).sql().equals(sql)) {
+                    Object[] params = batch.get(end).params();
+                    for (int i = 0; i < params.length; i++) {
+                        statement.setObject(i + 1, params[i]);
+                    }
+                    statement.addBatch();
+                    end++;
+                }
+                statement.executeBatch();
+            }
+            start = end;
+        }
+        conn.commit();
+        writes.add(batch.size());
+        flushes.increment();
+        for (Write write : batch) {
+            write.done().complete(null);
+        }
+    }
+
+    /**
+     * Fails every write in the list that hasn't already been completed
+     */
+    private void fail(List<Write> batch, Exception cause) {
+        DataAccessException ex = cause instanceof DataAccessException dataAccess ? dataAccess
+                : new DataAccessException("failed to write batch of " + batch.size(), cause);
+        for (Write write : batch) {
+            if (write.done().completeExceptionally(ex)) {
+                failedWrites.increment();
+            }
+        }
+    }
+}
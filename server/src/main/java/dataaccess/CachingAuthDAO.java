@@ -0,0 +1,185 @@
+package dataaccess;
+
+import model.AuthData;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers valid auth tokens in front of another {@link AuthDAO}, so checking the
+ * token on each request or WebSocket command is a hash lookup rather than a query.
+ * <p>
+ * A cached token is trusted for {@code ttlMillis} after it was read from the store,
+ * then checked against the store again, so a token revoked elsewhere stops working
+ * within that time. Logging out through {@link #deleteAuth} takes effect at once.
+ * Only valid tokens are cached, so made-up tokens can't fill the cache. Past
+ * {@code maxEntries}, each new token looks at the next {@value #SWEEP_BATCH} cached
+ * ones, sweeping out any that have expired, and drops the one closest to expiry if
+ * that freed no room. Each sweep picks up where the last one stopped, so a full cache
+ * is walked a batch at a time instead of being scanned on every insert.
+ */
+public class CachingAuthDAO implements AuthDAO {
+    // cached tokens looked at per insert once the cache is full
+    static final int SWEEP_BATCH = 16;
+
+    /**
+     * @param maxEntries tokens kept in memory
+     * @param ttlMillis  how long a cached token is trusted before the store is asked again
+     */
+    public record Settings(int maxEntries, long ttlMillis) {
+        public static final Settings DEFAULT = new Settings(10_000, 60_000);
+
+        public Settings {
+            if (maxEntries < 1 || ttlMillis < 1) {
+                throw new IllegalArgumentException("Invalid cache settings " + maxEntries + ", " + ttlMillis + "ms");
+            }
+        }
+    }
+
+    /**
+     * @param hits      lookups answered from memory
+     * @param misses    lookups that went to the store, including expired tokens
+     * @param evictions tokens dropped for space or age
+     * @param size      tokens in memory
+     */
+    public record Stats(long hits, long misses, long evictions, int size) {
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+
+    private record Entry(AuthData auth, long expiresAt) {
+    }
+
+    private final AuthDAO store;
+    private final Settings settings;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final Map<String, Entry> tokens = new ConcurrentHashMap<>();
+    // bumped by every delete and clear once the store has changed, so a store read can
+    // tell whether it raced a logout
+    private final AtomicLong invalidations = new AtomicLong();
+    // where the last sweep stopped; guarded by sweepLock
+    private final Object sweepLock = new Object();
+    private Iterator<Map.Entry<String, Entry>> sweep;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CachingAuthDAO(AuthDAO store, Settings settings) {
+        this(store, settings, System::nanoTime);
+    }
+
+    /**
+     * @param clock nanosecond time source, replaceable so tests can move time along
+     */
+    CachingAuthDAO(AuthDAO store, Settings settings, LongSupplier clock) {
+        this.store = store;
+        this.settings = settings;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(settings.ttlMillis());
+        this.clock = clock;
+    }
+
+    @Override
+    public void createAuth(AuthData auth) throws DataAccessException {
+        store.createAuth(auth);
+        // a new login is usually followed straight away by a request using the token
+        cache(auth);
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) throws DataAccessException {
+        Entry entry = tokens.get(authToken);
+        if (entry != null) {
+            if (clock.getAsLong() - entry.expiresAt() < 0) {
+                hits.increment();
+                return entry.auth();
+            }
+            if (tokens.remove(authToken, entry)) {
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        long seen = invalidations.get();
+        AuthData auth = store.getAuth(authToken);
+        if (auth != null) {
+            Entry cached = cache(auth);
+            // a logout that finished after the read may have missed this entry; one that
+            // finishes later still evicts it, so only those already done need checking
+            if (invalidations.get() != seen) {
+                tokens.remove(authToken, cached);
+            }
+        }
+        return auth;
+    }
+
+    @Override
+    public void deleteAuth(String authToken) throws DataAccessException {
+        // the store first, so a lookup that misses after the eviction can't read the token back
+        store.deleteAuth(authToken);
+        invalidations.incrementAndGet();
+        tokens.remove(authToken);
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        store.clear();
+        invalidations.incrementAndGet();
+        tokens.clear();
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), tokens.size());
+    }
+
+    private Entry cache(AuthData auth) {
+        long now = clock.getAsLong();
+        if (tokens.size() >= settings.maxEntries()) {
+            makeRoom(now);
+        }
+        Entry entry = new Entry(auth, now + ttlNanos);
+        tokens.put(auth.authToken(), entry);
+        return entry;
+    }
+
+    /**
+     * Looks at the next batch of cached tokens, dropping the expired ones, and the one
+     * closest to expiry if that didn't make room for one more
+     */
+    private void makeRoom(long now) {
+        synchronized (sweepLock) {
+            Map.Entry<String, Entry> soonest = null;
+            int budget = Math.min(SWEEP_BATCH, tokens.size());
+            for (int i = 0; i < budget; i++) {
+                if (sweep == null || !sweep.hasNext()) {
+                    sweep = tokens.entrySet().iterator();
+                    if (!sweep.hasNext()) {
+                        return;
+                    }
+                }
+                Map.Entry<String, Entry> next = sweep.next();
+                if (now - next.getValue().expiresAt() >= 0) {
+                    evict(next);
+                } else if (soonest == null || next.getValue().expiresAt() - soonest.getValue().expiresAt() < 0) {
+                    soonest = next;
+                }
+            }
+            if (soonest != null && tokens.size() >= settings.maxEntries()) {
+                evict(soonest);
+            }
+        }
+    }
+
+    private void evict(Map.Entry<String, Entry> token) {
+        if (tokens.remove(token.getKey(), token.getValue())) {
+            evictions.increment();
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package dataaccess;
+
+import chess.ChessGame;
+import model.GameData;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps recently used games in memory in front of another {@link GameDAO}, so a move
+ * reads its game without a query and the write goes out in the background.
+ * <p>
+ * {@code updateGame} changes the cached game and marks it dirty. A background flush
+ * writes each dirty game to the store at least every {@code maxStalenessMillis}. A game
+ * updated several times between flushes is written once, at its latest version, and
+ * flushes run one at a time so a game's versions reach the store in order. A write
+ * that fails is retried on the next flush, unless the game is no longer in the store,
+ * in which case the update is dropped and counted. {@link #close()} writes out everything
+ * still dirty, and the server calls it on stop.
+ * <p>
+ * Up to {@code maxResidentGames} games stay cached, least recently used dropped first.
+ * A dirty game is never dropped before it is written. The cache holds read-only
+ * snapshots of each game, and {@code getGame} returns a copy the caller may move on.
+ */
+public class CachingGameDAO implements GameDAO, AutoCloseable {
+    private static final Logger LOG = Logger.getLogger(CachingGameDAO.class.getName());
+
+    /**
+     * @param maxResidentGames   games kept in memory once written
+     * @param maxStalenessMillis longest an update waits before it is written to the store
+     */
+    public record Settings(int maxResidentGames, long maxStalenessMillis) {
+        public static final Settings DEFAULT = new Settings(1000, 200);
+
+        public Settings {
+            if (maxResidentGames < 1 || maxStalenessMillis < 1) {
+                throw new IllegalArgumentException("Invalid cache settings " + maxResidentGames + ", "
+                        + maxStalenessMillis + "ms");
+            }
+        }
+    }
+
+    /**
+     * @param hits          getGame calls answered from memory
+     * @param misses        getGame calls that read the store
+     * @param writes        games written to the store
+     * @param coalesced     updates replaced by a later one before they were written
+     * @param dropped       updates abandoned because their game was gone from the store
+     * @param pendingWrites games changed in memory and not yet written
+     * @param resident      games in memory
+     */
+    public record Stats(long hits, long misses, long writes, long coalesced, long dropped, int pendingWrites,
+                        int resident) {
+    }
+
+    private final GameDAO store;
+    private final Settings settings;
+    // access ordered, so iteration starts at the least recently used game
+    private final LinkedHashMap<Integer, GameData> resident = new LinkedHashMap<>(64, 0.75f, true);
+    // latest unwritten version of each changed game
+    private final Map<Integer, GameData> dirty = new ConcurrentHashMap<>();
+    // bumped by every updateGame and clear, so a read of the store can tell whether it raced one
+    private long updateCount;
+    // bumped by every clear, so an update that checked its game exists can tell the game
+    // may have been deleted since; guarded by resident
+    private long clearCount;
+    // held while writing to the store, so two flushes can't reorder a game's versions
+    private final Object flushLock = new Object();
+    private final ScheduledThreadPoolExecutor flusher;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public CachingGameDAO(GameDAO store, Settings settings) {
+        this.store = store;
+        this.settings = settings;
+        this.flusher = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "game-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, settings.maxStalenessMillis(),
+                settings.maxStalenessMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates the game in the store straight away, since the store assigns its ID
+     */
+    @Override
+    public int createGame(String gameName) throws DataAccessException {
+        return store.createGame(gameName);
+    }
+
+    @Override
+    public GameData getGame(int gameID) throws DataAccessException {
+        GameData cached;
+        synchronized (resident) {
+            cached = resident.get(gameID);
+        }
+        if (cached != null) {
+            hits.increment();
+            return copy(cached);
+        }
+        misses.increment();
+        long seen;
+        synchronized (resident) {
+            seen = updateCount;
+        }
+        GameData loaded = store.getGame(gameID);
+        if (loaded == null) {
+            return null;
+        }
+        GameData snapshot = snapshot(loaded);
+        synchronized (resident) {
+            GameData raced = resident.get(gameID);
+            if (raced != null) {
+                // an update landed while the store was being read, and it is newer
+                snapshot = raced;
+            } else if (updateCount == seen) {
+                resident.put(gameID, snapshot);
+                trim();
+            }
+            // otherwise an update may have been written and dropped during the read, so
+            // what was read could be older than the store; return it but don't cache it
+        }
+        return copy(snapshot);
+    }
+
+    /**
+     * Lists the stored games, with any changes not yet written applied. The games in
+     * the list are read-only snapshots.
+     */
+    @Override
+    public Collection<GameData> listGames() throws DataAccessException {
+        Collection<GameData> stored = store.listGames();
+        List<GameData> games = new ArrayList<>(stored.size());
+        for (GameData game : stored) {
+            GameData pending = dirty.get(game.gameID());
+            // the store may hand out its own live games, so snapshot those too
+            games.add(pending != null ? pending : snapshot(game));
+        }
+        return games;
+    }
+
+    /**
+     * Updates the game in memory and queues the write
+     *
+     * @throws DataAccessException if the game isn't cached and isn't in the store either
+     */
+    @Override
+    public void updateGame(GameData game) throws DataAccessException {
+        boolean cached;
+        long clears;
+        synchronized (resident) {
+            cached = resident.containsKey(game.gameID());
+            clears = clearCount;
+        }
+        if (!cached && store.getGame(game.gameID()) == null) {
+            throw new DataAccessException("Game not found: " + game.gameID());
+        }
+        GameData snapshot = snapshot(game);
+        synchronized (resident) {
+            if (clearCount != clears) {
+                // a clear deleted the game after it was found; queuing it would bring it back
+                throw new DataAccessException("Game not found: " + game.gameID());
+            }
+            updateCount++;
+            resident.put(game.gameID(), snapshot);
+            if (dirty.put(game.gameID(), snapshot) != null) {
+                coalesced.increment();
+            }
+        }
+    }
+
+    /**
+     * Drops everything cached, including changes not yet written, and clears the store
+     */
+    @Override
+    public void clear() throws DataAccessException {
+        synchronized (flushLock) {
+            // clear the store first, so a read that starts after the cache is emptied can't
+            // find a game that is about to go and cache it again
+            store.clear();
+            synchronized (resident) {
+                updateCount++;
+                clearCount++;
+                dirty.clear();
+                resident.clear();
+            }
+        }
+    }
+
+    /**
+     * Writes every changed game to the store now
+     *
+     * @throws DataAccessException the first write that failed, after trying the rest;
+     *                             the games that failed stay queued, except any no longer
+     *                             in the store, whose updates are dropped
+     */
+    public void flush() throws DataAccessException {
+        DataAccessException failure = null;
+        synchronized (flushLock) {
+            for (Map.Entry<Integer, GameData> entry : dirty.entrySet()) {
+                GameData game = entry.getValue();
+                try {
+                    store.updateGame(game);
+                } catch (DataAccessException ex) {
+                    if (isGone(entry.getKey())) {
+                        // deleted from the store behind the cache; retrying would fail forever
+                        LOG.log(Level.WARNING, "Dropping update to game " + entry.getKey()
+                                + ", which is no longer in the store", ex);
+                        dropped.increment();
+                        dirty.remove(entry.getKey(), game);
+                        synchronized (resident) {
+                            resident.remove(entry.getKey(), game);
+                        }
+                    } else if (failure == null) {
+                        failure = ex;
+                    }
+                    continue;
+                }
+                writes.increment();
+                // keep the entry if a newer version arrived during the write
+                dirty.remove(entry.getKey(), game);
+            }
+        }
+        synchronized (resident) {
+            trim();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    public Stats stats() {
+        synchronized (resident) {
+            return new Stats(hits.sum(), misses.sum(), writes.sum(), coalesced.sum(), dropped.sum(), dirty.size(),
+                    resident.size());
+        }
+    }
+
+    /**
+     * Stops the background flush and writes out every game still dirty
+     */
+    @Override
+    public void close() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(settings.maxStalenessMillis() * 10, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            flush();
+        } catch (DataAccessException ex) {
+            LOG.log(Level.SEVERE, dirty.size() + " game updates could not be saved on shutdown", ex);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (DataAccessException ex) {
+            LOG.log(Level.WARNING, "Game write-behind failed, retrying on the next flush", ex);
+        }
+    }
+
+    /**
+     * @return true if the store answers that it no longer has the game, false if it has
+     * it or can't be asked
+     */
+    private boolean isGone(int gameID) {
+        try {
+            return store.getGame(gameID) == null;
+        } catch (DataAccessException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Drops least recently used games that have been written, down to the size limit.
+     * Call with the resident lock held.
+     */
+    private void trim() {
+        Iterator<Map.Entry<Integer, GameData>> games = resident.entrySet().iterator();
+        while (resident.size() > settings.maxResidentGames() && games.hasNext()) {
+            if (!dirty.containsKey(games.next().getKey())) {
+                games.remove();
+            }
+        }
+    }
+
+    private static GameData snapshot(GameData game) {
+        return game.game() == null ? game : game.withGame(game.game().snapshot());
+    }
+
+    private static GameData copy(GameData game) {
+        return game.game() == null ? game : game.withGame(new ChessGame(game.game()));
+    }
+}
@@ -0,0 +1,509 @@
+package dataaccess;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A bounded pool of JDBC connections, so a DAO call reuses an open connection
+ * instead of paying a TCP and MySQL handshake every time.
+ * <p>
+ * At most {@code maxSize} connections are open at once and {@code minSize} are
+ * opened up front. A borrower waits up to {@code borrowTimeoutMillis} for one to
+ * come free. Each idle connection is checked with {@link Connection#isValid(int)}
+ * before it is handed out, and a dead one is replaced. Borrowers get a proxy whose
+ * {@code close()} hands the connection back, so the usual try-with-resources block
+ * works unchanged. A connection held longer than {@code leakThresholdMillis} is
+ * logged once, with the stack trace of the code that borrowed it.
+ * <p>
+ * Each connection also keeps up to {@code statementCacheSize} prepared statements,
+ * least recently used dropped first. {@code prepareStatement(sql)} on a borrowed
+ * connection hands back the cached statement for that SQL, and closing it clears its
+ * parameters for the next borrower instead of closing it, so a DAO call parses its
+ * SQL only the first time it runs on each connection.
+ */
+public class ConnectionPool implements AutoCloseable {
+    private static final Logger LOG = Logger.getLogger(ConnectionPool.class.getName());
+
+    /**
+     * Opens a new physical connection, already pointed at the right database
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    /**
+     * @param minSize                  connections opened when the pool starts
+     * @param maxSize                  most connections open at once
+     * @param borrowTimeoutMillis      how long borrow waits for a free connection
+     * @param leakThresholdMillis      how long a connection may be held before it is reported, 0 to never report
+     * @param validationTimeoutSeconds timeout passed to {@link Connection#isValid(int)} on borrow
+     * @param statementCacheSize       prepared statements kept per connection, 0 to never cache
+     */
+    public record Settings(int minSize, int maxSize, long borrowTimeoutMillis, long leakThresholdMillis,
+                           int validationTimeoutSeconds, int statementCacheSize) {
+        public Settings {
+            if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+                throw new IllegalArgumentException("Invalid pool size " + minSize + ".." + maxSize);
+            }
+            if (statementCacheSize < 0) {
+                throw new IllegalArgumentException("Invalid statement cache size " + statementCacheSize);
+            }
+        }
+
+        /**
+         * Reads the {@code db.pool.*} keys, using defaults for any that are missing
+         */
+        public static Settings fromProperties(Properties props) {
+            return new Settings(
+                    Integer.parseInt(props.getProperty("db.pool.minSize", "2")),
+                    Integer.parseInt(props.getProperty("db.pool.maxSize", "10")),
+                    Long.parseLong(props.getProperty("db.pool.borrowTimeoutMillis", "5000")),
+                    Long.parseLong(props.getProperty("db.pool.leakThresholdMillis", "30000")),
+                    Integer.parseInt(props.getProperty("db.pool.validationTimeoutSeconds", "2")),
+                    Integer.parseInt(props.getProperty("db.pool.statementCacheSize", "64")));
+        }
+    }
+
+    /**
+     * Point-in-time counters for monitoring the pool
+     *
+     * @param open               physical connections currently open
+     * @param idle               open connections waiting to be borrowed
+     * @param borrowed           connections currently handed out
+     * @param borrows            successful borrows since the pool started
+     * @param timeouts           borrows that gave up waiting
+     * @param validationFailures idle connections found dead on borrow and replaced
+     * @param leaks              borrows held past the leak threshold
+     * @param totalWaitNanos     time spent waiting across all successful borrows
+     * @param maxWaitNanos       longest single wait
+     * @param statementHits      prepareStatement calls served from a connection's cache
+     * @param statementMisses    prepareStatement calls that had to prepare the SQL
+     */
+    public record Stats(int open, int idle, int borrowed, long borrows, long timeouts, long validationFailures,
+                        long leaks, long totalWaitNanos, long maxWaitNanos, long statementHits,
+                        long statementMisses) {
+        public double averageWaitMillis() {
+            return borrows == 0 ? 0 : totalWaitNanos / 1e6 / borrows;
+        }
+    }
+
+    private final ConnectionFactory factory;
+    private final Settings settings;
+    // most recently returned first, so a quiet server keeps reusing the same warm connections
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    // one permit per connection that may be handed out
+    private final Semaphore permits;
+    private final Map<PooledConnection, Lease> leases = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService leakDetector;
+    private volatile boolean closed;
+
+    private final LongAdder borrows = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final LongAdder leaks = new LongAdder();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder statementHits = new LongAdder();
+    private final LongAdder statementMisses = new LongAdder();
+
+    /**
+     * Creates the pool and opens its first {@code minSize} connections
+     *
+     * @throws DataAccessException if a connection can't be opened
+     */
+    public ConnectionPool(ConnectionFactory factory, Settings settings) throws DataAccessException {
+        this.factory = factory;
+        this.settings = settings;
+        this.permits = new Semaphore(settings.maxSize(), true);
+        for (int i = 0; i < settings.minSize(); i++) {
+            idle.add(open());
+        }
+        if (settings.leakThresholdMillis() > 0) {
+            leakDetector = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "connection-leak-detector");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long period = Math.max(1, settings.leakThresholdMillis() / 2);
+            leakDetector.scheduleAtFixedRate(this::detectLeaks, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            leakDetector = null;
+        }
+    }
+
+    /**
+     * Borrows a connection. Close it when done, preferably with try-with-resources,
+     * to hand it back to the pool.
+     *
+     * @throws DataAccessException if no connection frees up in time, the pool is
+     *                             closed, or a new connection can't be opened
+     */
+    public Connection borrow() throws DataAccessException {
+        if (closed) {
+            throw new DataAccessException("Connection pool is closed");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(settings.borrowTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                timeouts.increment();
+                throw new DataAccessException("Timed out after " + settings.borrowTimeoutMillis()
+                        + "ms waiting for a database connection");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted waiting for a database connection", ex);
+        }
+        long waited = System.nanoTime() - start;
+
+        PooledConnection connection;
+        try {
+            connection = takeValidConnection();
+        } catch (DataAccessException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+        borrows.increment();
+        totalWaitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+        Lease lease = new Lease(connection, settings.leakThresholdMillis() > 0 ? new Throwable("Borrowed here") : null);
+        leases.put(connection, lease);
+        return lease.proxy;
+    }
+
+    public Stats stats() {
+        int borrowed = leases.size();
+        int idleCount = idle.size();
+        return new Stats(idleCount + borrowed, idleCount, borrowed, borrows.sum(), timeouts.sum(),
+                validationFailures.sum(), leaks.sum(), totalWaitNanos.get(), maxWaitNanos.get(),
+                statementHits.sum(), statementMisses.sum());
+    }
+
+    /**
+     * Closes every idle connection and stops handing out new ones. Connections still
+     * borrowed are closed as they come back.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (leakDetector != null) {
+            leakDetector.shutdownNow();
+        }
+        PooledConnection connection;
+        while ((connection = idle.poll()) != null) {
+            connection.close();
+        }
+    }
+
+    private PooledConnection takeValidConnection() throws DataAccessException {
+        PooledConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            if (isValid(connection.raw)) {
+                return connection;
+            }
+            validationFailures.increment();
+            connection.close();
+        }
+        return open();
+    }
+
+    private boolean isValid(Connection connection) {
+        try {
+            return connection.isValid(settings.validationTimeoutSeconds());
+        } catch (SQLException ex) {
+            return false;
+        }
+    }
+
+    private PooledConnection open() throws DataAccessException {
+        try {
+            return new PooledConnection(factory.open(), settings.statementCacheSize());
+        } catch (SQLException ex) {
+            throw new DataAccessException("failed to get connection", ex);
+        }
+    }
+
+    /**
+     * Takes a connection back from a borrower, resetting what the borrower may have
+     * changed so the next one starts clean
+     */
+    private void giveBack(Lease lease) {
+        PooledConnection connection = lease.connection;
+        leases.remove(connection);
+        try {
+            Connection raw = connection.raw;
+            boolean reusable = !closed && !raw.isClosed();
+            if (reusable && !raw.getAutoCommit()) {
+                raw.rollback();
+                raw.setAutoCommit(true);
+            }
+            if (reusable) {
+                connection.reclaimStatements();
+                idle.addFirst(connection);
+                // close() may have drained the idle connections since closed was read; it
+                // sets closed first, so whichever of us takes the connection off closes it
+                if (closed && idle.remove(connection)) {
+                    connection.close();
+                }
+            } else {
+                connection.close();
+            }
+        } catch (SQLException ex) {
+            connection.close();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void detectLeaks() {
+        long now = System.nanoTime();
+        long threshold = TimeUnit.MILLISECONDS.toNanos(settings.leakThresholdMillis());
+        for (Lease lease : leases.values()) {
+            if (!lease.reported && now - lease.borrowedAt > threshold) {
+                lease.reported = true;
+                leaks.increment();
+                LOG.log(Level.WARNING, "Database connection held for over " + settings.leakThresholdMillis()
+                        + "ms without being closed", lease.borrowedBy);
+            }
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable resource) {
+        try {
+            resource.close();
+        } catch (Exception ignored) {
+            // the resource is being thrown away either way
+        }
+    }
+
+    /**
+     * A physical connection and the statements prepared on it. Only the thread that has
+     * the connection borrowed touches the cache, so it needs no locking.
+     */
+    private static final class PooledConnection {
+        private final Connection raw;
+        private final LinkedHashMap<String, CachedStatement> statements;
+
+        PooledConnection(Connection raw, int cacheSize) {
+            this.raw = raw;
+            this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                    if (size() <= cacheSize) {
+                        return false;
+                    }
+                    eldest.getValue().evict();
+                    return true;
+                }
+            };
+        }
+
+        /**
+         * Takes back statements a borrower left open, so they can be lent out again
+         */
+        void reclaimStatements() throws SQLException {
+            for (CachedStatement statement : statements.values()) {
+                if (statement.inUse) {
+                    statement.inUse = false;
+                    statement.proxy = null;
+                    statement.raw.clearParameters();
+                    statement.raw.clearBatch();
+                }
+            }
+        }
+
+        void close() {
+            for (CachedStatement statement : statements.values()) {
+                statement.evict();
+            }
+            statements.clear();
+            closeQuietly(raw);
+        }
+    }
+
+    /**
+     * A prepared statement kept open on its connection, and the proxy handler that
+     * turns the borrower's close() into clearing it for reuse
+     */
+    private static final class CachedStatement implements InvocationHandler {
+        private final PreparedStatement raw;
+        // the proxy of the lease the statement is lent to, which getConnection returns
+        private Connection owner;
+        private PreparedStatement proxy;
+        private boolean inUse;
+        private boolean evicted;
+
+        CachedStatement(PreparedStatement raw) {
+            this.raw = raw;
+        }
+
+        PreparedStatement lend(Connection owner) {
+            this.owner = owner;
+            inUse = true;
+            proxy = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, this);
+            return proxy;
+        }
+
+        /**
+         * Drops the statement from the cache; one still lent out is closed when it comes back
+         */
+        void evict() {
+            evicted = true;
+            if (!inUse) {
+                closeQuietly(raw);
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (proxy == this.proxy && inUse) {
+                        inUse = false;
+                        if (evicted) {
+                            closeQuietly(raw);
+                        } else {
+                            try {
+                                raw.clearParameters();
+                                raw.clearBatch();
+                            } catch (SQLException ex) {
+                                evicted = true;
+                                closeQuietly(raw);
+                            }
+                        }
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return proxy != this.proxy || !inUse;
+                }
+                case "getConnection" -> {
+                    return owner;
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Cached " + raw;
+                }
+                default -> {
+                    if (proxy != this.proxy || !inUse) {
+                        throw new SQLException("Statement has already been closed");
+                    }
+                }
+            }
+            try {
+                return method.invoke(raw, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+    }
+
+    /**
+     * One borrow of a connection, and the proxy handler that turns the borrower's
+     * close() into a return to the pool
+     */
+    private final class Lease implements InvocationHandler {
+        private final PooledConnection connection;
+        private final Connection proxy;
+        private final Throwable borrowedBy;
+        private final long borrowedAt = System.nanoTime();
+        private volatile boolean reported;
+        private boolean returned;
+
+        Lease(PooledConnection connection, Throwable borrowedBy) {
+            this.connection = connection;
+            this.borrowedBy = borrowedBy;
+            this.proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, this);
+        }
+
+        /**
+         * Hands out the cached statement for sql, or prepares one. If the cached one is
+         * still open from an earlier call in this borrow, a separate uncached one is used.
+         */
+        private PreparedStatement prepare(String sql) throws SQLException {
+            CachedStatement cached = connection.statements.get(sql);
+            if (cached != null && !cached.inUse) {
+                statementHits.increment();
+                return cached.lend(proxy);
+            }
+            statementMisses.increment();
+            PreparedStatement raw = connection.raw.prepareStatement(sql);
+            if (cached != null || settings.statementCacheSize() == 0) {
+                return raw;
+            }
+            cached = new CachedStatement(raw);
+            connection.statements.put(sql, cached);
+            return cached.lend(proxy);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    synchronized (this) {
+                        if (!returned) {
+                            returned = true;
+                            giveBack(this);
+                        }
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    synchronized (this) {
+                        return returned || connection.raw.isClosed();
+                    }
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Pooled " + connection.raw;
+                }
+                default -> {
+                    synchronized (this) {
+                        if (returned) {
+                            throw new SQLException("Connection has already been returned to the pool");
+                        }
+                    }
+                }
+            }
+            if (method.getName().equals("prepareStatement") && method.getParameterCount() == 1) {
+                return prepare((String) args[0]);
+            }
+            try {
+                return method.invoke(connection.raw, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+    }
+}
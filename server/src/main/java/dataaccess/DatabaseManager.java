@@ -0,0 +1,136 @@
+package dataaccess;
+
+import java.sql.*;
+import java.util.Properties;
+
+public class DatabaseManager {
+    private static String databaseName;
+    private static String dbUsername;
+    private static String dbPassword;
+    private static String connectionUrl;
+    private static ConnectionPool.Settings poolSettings;
+    // opened on the first getConnection, after createDatabase has had a chance to run.
+    // Read without locking on every borrow; the class lock only guards opening and closing it.
+    private static volatile ConnectionPool pool;
+    private static BatchWriter.Settings batchSettings;
+    private static BatchWriter batchWriter;
+
+    /*
+     * Load the database information for the db.properties file.
+     */
+    static {
+        loadPropertiesFromResources();
+    }
+
+    /**
+     * Creates the database if it does not already exist.
+     */
+    static public void createDatabase() throws DataAccessException {
+        var statement = "CREATE DATABASE IF NOT EXISTS " + databaseName;
+        try (var conn = DriverManager.getConnection(connectionUrl, dbUsername, dbPassword);
+             var preparedStatement = conn.prepareStatement(statement)) {
+            preparedStatement.executeUpdate();
+        } catch (SQLException ex) {
+            throw new DataAccessException("failed to create database", ex);
+        }
+    }
+
+    /**
+     * Borrows a connection to the database from the connection pool, with the catalog
+     * set from the properties specified in db.properties. Connections to the database
+     * should be short-lived, and you must close the connection when you are done with
+     * it, which hands it back to the pool. The easiest way to do that is with a
+     * try-with-resource block.
+     * <br/>
+     * <code>
+     * try (var conn = DatabaseManager.getConnection()) {
+     * // execute SQL statements.
+     * }
+     * </code>
+     */
+    static Connection getConnection() throws DataAccessException {
+        return pool().borrow();
+    }
+
+    /**
+     * @return the connection pool's counters, or null if no connection has been borrowed yet
+     */
+    static public ConnectionPool.Stats poolStats() {
+        ConnectionPool current = pool;
+        return current == null ? null : current.stats();
+    }
+
+    /**
+     * Gets the shared writer that batches small writes, such as saving a game after each
+     * move, into one transaction per flush
+     * <br/>
+     * <code>
+     * DatabaseManager.batchWriter().submit("UPDATE game SET game = ? WHERE id = ?", json, id);
+     * </code>
+     */
+    static synchronized BatchWriter batchWriter() throws DataAccessException {
+        if (batchWriter == null) {
+            batchWriter = new BatchWriter(pool(), batchSettings);
+        }
+        return batchWriter;
+    }
+
+    /**
+     * Writes out anything the batch writer still has queued, then closes the pooled
+     * connections. The next getConnection opens a new pool.
+     */
+    static public synchronized void closePool() {
+        if (batchWriter != null) {
+            batchWriter.close();
+            batchWriter = null;
+        }
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+    }
+
+    private static ConnectionPool pool() throws DataAccessException {
+        ConnectionPool current = pool;
+        if (current != null) {
+            return current;
+        }
+        synchronized (DatabaseManager.class) {
+            if (pool == null) {
+                pool = new ConnectionPool(DatabaseManager::openConnection, poolSettings);
+            }
+            return pool;
+        }
+    }
+
+    private static Connection openConnection() throws SQLException {
+        var conn = DriverManager.getConnection(connectionUrl, dbUsername, dbPassword);
+        conn.setCatalog(databaseName);
+        return conn;
+    }
+
+    private static void loadPropertiesFromResources() {
+        try (var propStream = Thread.currentThread().getContextClassLoader().getResourceAsStream("db.properties")) {
+            if (propStream == null) {
+                throw new Exception("Unable to load db.properties");
+            }
+            Properties props = new Properties();
+            props.load(propStream);
+            loadProperties(props);
+        } catch (Exception ex) {
+            throw new RuntimeException("unable to process db.properties", ex);
+        }
+    }
+
+    private static void loadProperties(Properties props) {
+        databaseName = props.getProperty("db.name");
+        dbUsername = props.getProperty("db.user");
+        dbPassword = props.getProperty("db.password");
+
+        var host = props.getProperty("db.host");
+        var port = Integer.parseInt(props.getProperty("db.port"));
+        connectionUrl = String.format("jdbc:mysql://%s:%d", host, port);
+        poolSettings = ConnectionPool.Settings.fromProperties(props);
+        batchSettings = BatchWriter.Settings.fromProperties(props);
+    }
+}
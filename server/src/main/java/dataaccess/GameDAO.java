@@ -0,0 +1,34 @@
+package dataaccess;
+
+import model.GameData;
+
+import java.util.Collection;
+
+/**
+ * Stores games and their state
+ */
+public interface GameDAO {
+
+    /**
+     * Creates a game in the starting position with no players
+     *
+     * @return the new game's ID
+     */
+    int createGame(String gameName) throws DataAccessException;
+
+    /**
+     * @return the game, or null if there is no game with that ID
+     */
+    GameData getGame(int gameID) throws DataAccessException;
+
+    Collection<GameData> listGames() throws DataAccessException;
+
+    /**
+     * Replaces a stored game with a new version of it
+     *
+     * @throws DataAccessException if there is no game with that ID
+     */
+    void updateGame(GameData game) throws DataAccessException;
+
+    void clear() throws DataAccessException;
+}
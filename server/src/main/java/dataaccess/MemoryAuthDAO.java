@@ -0,0 +1,33 @@
+package dataaccess;
+
+import model.AuthData;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps auth tokens in memory, for running the server without a database
+ */
+public class MemoryAuthDAO implements AuthDAO {
+    private final Map<String, AuthData> tokens = new ConcurrentHashMap<>();
+
+    @Override
+    public void createAuth(AuthData auth) {
+        tokens.put(auth.authToken(), auth);
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) {
+        return tokens.get(authToken);
+    }
+
+    @Override
+    public void deleteAuth(String authToken) {
+        tokens.remove(authToken);
+    }
+
+    @Override
+    public void clear() {
+        tokens.clear();
+    }
+}
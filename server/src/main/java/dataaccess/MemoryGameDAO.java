@@ -0,0 +1,47 @@
+package dataaccess;
+
+import chess.ChessGame;
+import model.GameData;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps games in memory, for running the server without a database
+ */
+public class MemoryGameDAO implements GameDAO {
+    private final Map<Integer, GameData> games = new ConcurrentHashMap<>();
+    private final AtomicInteger nextID = new AtomicInteger(1);
+
+    @Override
+    public int createGame(String gameName) {
+        int gameID = nextID.getAndIncrement();
+        games.put(gameID, new GameData(gameID, null, null, gameName, new ChessGame()));
+        return gameID;
+    }
+
+    @Override
+    public GameData getGame(int gameID) {
+        return games.get(gameID);
+    }
+
+    @Override
+    public Collection<GameData> listGames() {
+        return new ArrayList<>(games.values());
+    }
+
+    @Override
+    public void updateGame(GameData game) throws DataAccessException {
+        if (games.replace(game.gameID(), game) == null) {
+            throw new DataAccessException("Game not found: " + game.gameID());
+        }
+    }
+
+    @Override
+    public void clear() {
+        games.clear();
+    }
+}
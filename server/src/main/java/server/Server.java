@@ -1,15 +1,46 @@
 package server;
 
+import com.google.gson.Gson;
+import dataaccess.AuthDAO;
+import dataaccess.CachingAuthDAO;
+import dataaccess.CachingGameDAO;
+import dataaccess.DatabaseManager;
+import dataaccess.GameDAO;
+import dataaccess.MemoryAuthDAO;
+import dataaccess.MemoryGameDAO;
 import io.javalin.*;
+import service.PasswordHasher;
+import service.ServiceUnavailableException;
+
+import java.util.Map;
 
 public class Server {
 
     private final Javalin javalin;
+    // games are read and written through the cache; stop() saves what it still holds
+    private final CachingGameDAO gameDAO;
+    // every authenticated request and WebSocket command checks its token here first
+    private final CachingAuthDAO authDAO;
+    // registration and login hash passwords here rather than on the request threads
+    private final PasswordHasher passwordHasher;
 
     public Server() {
+        this(new MemoryGameDAO(), new MemoryAuthDAO());
+    }
+
+    public Server(GameDAO gameStore, AuthDAO authStore) {
+        gameDAO = new CachingGameDAO(gameStore, CachingGameDAO.Settings.DEFAULT);
+        authDAO = new CachingAuthDAO(authStore, CachingAuthDAO.Settings.DEFAULT);
+        passwordHasher = new PasswordHasher(PasswordHasher.Settings.DEFAULT);
         javalin = Javalin.create(config -> config.staticFiles.add("web"));
 
         // Register your endpoints and exception handlers here.
+        javalin.exception(ServiceUnavailableException.class, (ex, ctx) -> {
+            ctx.status(503);
+            ctx.header("Retry-After", String.valueOf(ex.getRetryAfterSeconds()));
+            ctx.contentType("application/json");
+            ctx.result(new Gson().toJson(Map.of("message", ex.getMessage())));
+        });
 
     }
 
@@ -18,7 +49,25 @@ public class Server {
         return javalin.port();
     }
 
+    /**
+     * @return hit and miss counts for the auth token cache
+     */
+    public CachingAuthDAO.Stats authCacheStats() {
+        return authDAO.stats();
+    }
+
+    /**
+     * @return queue depth, rejections, latency histograms and cost factors for password hashing
+     */
+    public PasswordHasher.Stats passwordHasherStats() {
+        return passwordHasher.stats();
+    }
+
     public void stop() {
         javalin.stop();
+        // stop taking requests first, then write out every game change still in memory
+        gameDAO.close();
+        DatabaseManager.closePool();
+        passwordHasher.close();
     }
 }
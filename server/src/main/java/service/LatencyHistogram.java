@@ -0,0 +1,56 @@
+package service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts durations in power-of-two microsecond buckets, so recording is a couple of
+ * atomic adds and percentiles are exact to within a factor of two
+ */
+public class LatencyHistogram {
+    // bucket i holds durations of at least 2^(i-1) and under 2^i microseconds
+    private static final int BUCKETS = 40;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder totalNanos = new LongAdder();
+
+    /**
+     * @param count      durations recorded
+     * @param meanMicros average duration
+     * @param p50Micros  upper bound of the bucket holding the median
+     * @param p99Micros  upper bound of the bucket holding the 99th percentile
+     * @param buckets    count per bucket, bucket i covering durations under 2^i microseconds
+     */
+    public record Snapshot(long count, double meanMicros, long p50Micros, long p99Micros, long[] buckets) {
+    }
+
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        counts.incrementAndGet(bucket);
+        totalNanos.add(nanos);
+    }
+
+    public Snapshot snapshot() {
+        long[] buckets = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = counts.get(i);
+            count += buckets[i];
+        }
+        double mean = count == 0 ? 0 : totalNanos.sum() / 1000.0 / count;
+        return new Snapshot(count, mean, percentile(buckets, count, 0.50), percentile(buckets, count, 0.99), buckets);
+    }
+
+    private static long percentile(long[] buckets, long count, double fraction) {
+        long rank = (long) Math.ceil(count * fraction);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank && seen > 0) {
+                return 1L << i;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,174 @@
+package service;
+
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs bcrypt hashing and verification on a small pool of its own, so a burst of
+ * registrations or logins can't take every request thread.
+ * <p>
+ * At most {@code threads} hashes run at once and {@code queueCapacity} more wait.
+ * Past that, work is turned away with a {@link ServiceUnavailableException} that the
+ * server reports as 503 with a Retry-After header. Hash, verify and queue wait times
+ * are recorded in {@link LatencyHistogram}s. Verification also counts the cost
+ * factor of each stored hash, to show how many passwords still use an old cost after
+ * {@code cost} is raised.
+ */
+public class PasswordHasher implements AutoCloseable {
+
+    /**
+     * @param threads           hashes run at once; bcrypt is CPU bound, so at most the core count
+     * @param queueCapacity     hashes waiting for a thread before new ones are refused
+     * @param cost              bcrypt log2 rounds for new hashes; each step doubles the time
+     * @param retryAfterSeconds what the 503 response tells the client to wait
+     */
+    public record Settings(int threads, int queueCapacity, int cost, int retryAfterSeconds) {
+        public static final Settings DEFAULT =
+                new Settings(Math.max(1, Runtime.getRuntime().availableProcessors() / 2), 64, 10, 1);
+
+        public Settings {
+            if (threads < 1 || queueCapacity < 0 || cost < 4 || cost > 31 || retryAfterSeconds < 0) {
+                throw new IllegalArgumentException("Invalid password hasher settings");
+            }
+        }
+    }
+
+    /**
+     * @param cost          cost factor used for new hashes
+     * @param queued        hashes waiting for a thread
+     * @param rejected      hashes turned away because the queue was full
+     * @param hashLatency   time to hash a new password
+     * @param verifyLatency time to check a password against its hash
+     * @param queueWait     time work waited for a thread
+     * @param verifiedCosts how many verified hashes used each cost factor
+     */
+    public record Stats(int cost, int queued, long rejected, LatencyHistogram.Snapshot hashLatency,
+                        LatencyHistogram.Snapshot verifyLatency, LatencyHistogram.Snapshot queueWait,
+                        Map<Integer, Long> verifiedCosts) {
+    }
+
+    private final Settings settings;
+    private final ThreadPoolExecutor executor;
+    private final LatencyHistogram hashLatency = new LatencyHistogram();
+    private final LatencyHistogram verifyLatency = new LatencyHistogram();
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final AtomicLongArray verifiedCosts = new AtomicLongArray(32);
+    private final LongAdder rejected = new LongAdder();
+
+    public PasswordHasher(Settings settings) {
+        this.settings = settings;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(settings.threads(), settings.threads(), 0, TimeUnit.MILLISECONDS,
+                settings.queueCapacity() == 0 ? new SynchronousQueue<>()
+                        : new ArrayBlockingQueue<>(settings.queueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hasher-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * @return a future for the bcrypt hash of password, salted at the configured cost
+     * @throws ServiceUnavailableException if too many hashes are already waiting
+     * @throws IllegalStateException       if the hasher has been closed
+     */
+    public CompletableFuture<String> hash(String password) throws ServiceUnavailableException {
+        return submit(() -> BCrypt.hashpw(password, BCrypt.gensalt(settings.cost())), hashLatency);
+    }
+
+    /**
+     * @return a future for whether password matches the stored hash
+     * @throws ServiceUnavailableException if too many hashes are already waiting
+     * @throws IllegalStateException       if the hasher has been closed
+     */
+    public CompletableFuture<Boolean> verify(String password, String hash) throws ServiceUnavailableException {
+        return submit(() -> {
+            countCost(hash);
+            return BCrypt.checkpw(password, hash);
+        }, verifyLatency);
+    }
+
+    public Stats stats() {
+        Map<Integer, Long> costs = new TreeMap<>();
+        for (int cost = 0; cost < verifiedCosts.length(); cost++) {
+            long count = verifiedCosts.get(cost);
+            if (count != 0) {
+                costs.put(cost, count);
+            }
+        }
+        return new Stats(settings.cost(), executor.getQueue().size(), rejected.sum(), hashLatency.snapshot(),
+                verifyLatency.snapshot(), queueWait.snapshot(), costs);
+    }
+
+    /**
+     * Stops taking work; hashes already queued still finish
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> work, LatencyHistogram latency)
+            throws ServiceUnavailableException {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long queuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                long start = System.nanoTime();
+                queueWait.record(start - queuedAt);
+                T value = null;
+                Throwable failure = null;
+                try {
+                    value = work.get();
+                } catch (Throwable ex) {
+                    // an Error too, or the caller would wait on the future forever
+                    failure = ex;
+                }
+                // recorded before completing, so a caller that waited on the future finds
+                // its own call in stats()
+                latency.record(System.nanoTime() - start);
+                if (failure != null) {
+                    result.completeExceptionally(failure);
+                } else {
+                    result.complete(value);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            if (executor.isShutdown()) {
+                // not load to shed; the server is stopping
+                throw new IllegalStateException("Password hasher is closed", ex);
+            }
+            rejected.increment();
+            throw new ServiceUnavailableException("Error: server is busy, try again later",
+                    settings.retryAfterSeconds());
+        }
+        return result;
+    }
+
+    /**
+     * Counts the cost factor of a hash in the usual {@code $2a$10$...} form
+     */
+    private void countCost(String hash) {
+        if (hash != null && hash.length() > 7 && hash.charAt(0) == '$' && hash.charAt(3) == '$') {
+            int tens = hash.charAt(4) - '0';
+            int ones = hash.charAt(5) - '0';
+            if (tens >= 0 && tens <= 3 && ones >= 0 && ones <= 9 && tens * 10 + ones < verifiedCosts.length()) {
+                verifiedCosts.incrementAndGet(tens * 10 + ones);
+            }
+        }
+    }
+}
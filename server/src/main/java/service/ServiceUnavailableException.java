@@ -0,0 +1,18 @@
+package service;
+
+/**
+ * Indicates the server is too busy to take the request right now, and reported
+ * to the client as HTTP 503 with a Retry-After header
+ */
+public class ServiceUnavailableException extends Exception {
+    private final int retryAfterSeconds;
+
+    public ServiceUnavailableException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
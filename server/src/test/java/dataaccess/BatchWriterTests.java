@@ -0,0 +1,128 @@
+package dataaccess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks that the batch writer groups writes into batches, flushes them on size and
+ * time, and acknowledges each write only once it has been committed
+ */
+public class BatchWriterTests {
+    private static final String INSERT = "INSERT INTO auth (token, username) VALUES (?, ?)";
+    private static final String UPDATE = "UPDATE game SET game = ? WHERE id = ?";
+
+    @Test
+    @DisplayName("Full Batch Flushes Straight Away")
+    public void flushOnSize() throws Exception {
+        StubDatabase database = new StubDatabase();
+        try (ConnectionPool pool = pool(database);
+             BatchWriter writer = new BatchWriter(pool, new BatchWriter.Settings(3, 60_000))) {
+            List<CompletableFuture<Void>> acks = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                acks.add(writer.submit(INSERT, "token" + i, "user" + i));
+            }
+            CompletableFuture.allOf(acks.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+            Assertions.assertEquals(1, database.batches.size());
+            Assertions.assertEquals(3, database.committed.size());
+            Assertions.assertEquals(INSERT + " [token2, user2]", database.committed.get(2));
+            Assertions.assertEquals(new BatchWriter.Stats(3, 1, 0), writer.stats());
+        }
+    }
+
+    @Test
+    @DisplayName("Partial Batch Flushes After The Delay")
+    public void flushOnTime() throws Exception {
+        StubDatabase database = new StubDatabase();
+        try (ConnectionPool pool = pool(database);
+             BatchWriter writer = new BatchWriter(pool, new BatchWriter.Settings(100, 20))) {
+            CompletableFuture<Void> ack = writer.submit(UPDATE, "{}", 1);
+            ack.get(5, TimeUnit.SECONDS);
+            Assertions.assertEquals(List.of(UPDATE + " [{}, 1]"), database.committed);
+        }
+    }
+
+    @Test
+    @DisplayName("Writes Keep Their Order Across Statements")
+    public void orderedRuns() throws Exception {
+        StubDatabase database = new StubDatabase();
+        try (ConnectionPool pool = pool(database);
+             BatchWriter writer = new BatchWriter(pool, new BatchWriter.Settings(100, 60_000))) {
+            writer.submit(INSERT, "a", "alice");
+            writer.submit(INSERT, "b", "bob");
+            writer.submit(UPDATE, "{}", 7);
+            writer.submit(INSERT, "c", "carol");
+            writer.flush().get(5, TimeUnit.SECONDS);
+
+            Assertions.assertEquals(3, database.batches.size());
+            Assertions.assertEquals(List.of(INSERT + " [a, alice]", INSERT + " [b, bob]", UPDATE + " [{}, 7]",
+                    INSERT + " [c, carol]"), database.committed);
+            // one connection, so each SQL string is prepared once and then reused
+            Assertions.assertEquals(2, database.prepared.size());
+        }
+    }
+
+    @Test
+    @DisplayName("Failed Write Doesn't Fail The Rest")
+    public void failureIsIsolated() throws Exception {
+        StubDatabase database = new StubDatabase();
+        database.failingSql = UPDATE;
+        try (ConnectionPool pool = pool(database);
+             BatchWriter writer = new BatchWriter(pool, new BatchWriter.Settings(100, 60_000))) {
+            CompletableFuture<Void> first = writer.submit(INSERT, "a", "alice");
+            CompletableFuture<Void> update = writer.submit(UPDATE, "{}", 7);
+            CompletableFuture<Void> last = writer.submit(INSERT, "c", "carol");
+            writer.flush().get(5, TimeUnit.SECONDS);
+
+            ExecutionException ex = Assertions.assertThrows(ExecutionException.class, update::get);
+            Assertions.assertTrue(ex.getCause() instanceof DataAccessException);
+            first.get(5, TimeUnit.SECONDS);
+            last.get(5, TimeUnit.SECONDS);
+            // the batch was rolled back once, then each write went in on its own
+            Assertions.assertEquals(1, database.rollbacks);
+            Assertions.assertEquals(List.of(INSERT + " [a, alice]", INSERT + " [c, carol]"), database.committed);
+            Assertions.assertEquals(new BatchWriter.Stats(2, 2, 1), writer.stats());
+        }
+    }
+
+    @Test
+    @DisplayName("Unchecked Failure Still Completes Every Write")
+    public void uncheckedFailure() throws Exception {
+        StubDatabase database = new StubDatabase();
+        database.brokenSql = UPDATE;
+        try (ConnectionPool pool = pool(database);
+             BatchWriter writer = new BatchWriter(pool, new BatchWriter.Settings(100, 60_000))) {
+            CompletableFuture<Void> update = writer.submit(UPDATE, "{}", 7);
+            writer.flush().get(5, TimeUnit.SECONDS);
+
+            Assertions.assertTrue(update.isDone());
+            ExecutionException ex = Assertions.assertThrows(ExecutionException.class, update::get);
+            Assertions.assertTrue(ex.getCause() instanceof DataAccessException);
+            Assertions.assertEquals(new BatchWriter.Stats(0, 0, 1), writer.stats());
+        }
+    }
+
+    @Test
+    @DisplayName("Close Writes Out Queued Writes")
+    public void closeFlushes() throws Exception {
+        StubDatabase database = new StubDatabase();
+        try (ConnectionPool pool = pool(database)) {
+            BatchWriter writer = new BatchWriter(pool, new BatchWriter.Settings(100, 60_000));
+            CompletableFuture<Void> ack = writer.submit(INSERT, "a", "alice");
+            writer.close();
+            Assertions.assertTrue(ack.isDone() && !ack.isCompletedExceptionally());
+            Assertions.assertTrue(writer.submit(INSERT, "b", "bob").isCompletedExceptionally());
+        }
+    }
+
+    private static ConnectionPool pool(StubDatabase database) throws DataAccessException {
+        return new ConnectionPool(database, new ConnectionPool.Settings(1, 1, 1000, 0, 1, 16));
+    }
+}
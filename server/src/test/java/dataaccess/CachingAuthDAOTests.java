@@ -0,0 +1,196 @@
+package dataaccess;
+
+import model.AuthData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checks auth token caching, expiry, eviction and logout
+ */
+public class CachingAuthDAOTests {
+    private static final AuthData ALICE = new AuthData("token-a", "alice");
+
+    @Test
+    @DisplayName("Valid Tokens Are Served From Memory")
+    public void hits() throws Exception {
+        CountingStore store = new CountingStore();
+        store.createAuth(ALICE);
+        CachingAuthDAO cache = new CachingAuthDAO(store, new CachingAuthDAO.Settings(10, 60_000));
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertEquals(ALICE, cache.getAuth("token-a"));
+        }
+        Assertions.assertEquals(1, store.reads);
+        Assertions.assertEquals(new CachingAuthDAO.Stats(4, 1, 0, 1), cache.stats());
+    }
+
+    @Test
+    @DisplayName("Unknown Tokens Aren't Cached")
+    public void missesAreNotCached() throws Exception {
+        CountingStore store = new CountingStore();
+        CachingAuthDAO cache = new CachingAuthDAO(store, new CachingAuthDAO.Settings(10, 60_000));
+        Assertions.assertNull(cache.getAuth("bogus"));
+        Assertions.assertNull(cache.getAuth("bogus"));
+        Assertions.assertEquals(2, store.reads);
+        Assertions.assertEquals(0, cache.stats().size());
+    }
+
+    @Test
+    @DisplayName("Logout Invalidates At Once")
+    public void logout() throws Exception {
+        CountingStore store = new CountingStore();
+        CachingAuthDAO cache = new CachingAuthDAO(store, new CachingAuthDAO.Settings(10, 60_000));
+        cache.createAuth(ALICE);
+        Assertions.assertEquals(ALICE, cache.getAuth("token-a"));
+        Assertions.assertEquals(0, store.reads);
+
+        cache.deleteAuth("token-a");
+        Assertions.assertNull(cache.getAuth("token-a"));
+        Assertions.assertNull(store.getAuth("token-a"));
+    }
+
+    @Test
+    @DisplayName("Lookup Racing A Logout Doesn't Cache The Token")
+    public void logoutRacingLookup() throws Exception {
+        CountingStore store = new CountingStore();
+        CachingAuthDAO cache = new CachingAuthDAO(store, new CachingAuthDAO.Settings(10, 60_000));
+
+        // a lookup that misses while the logout is still deleting from the store
+        store.createAuth(ALICE);
+        store.beforeDelete = () -> lookUp(cache);
+        cache.deleteAuth("token-a");
+        Assertions.assertNull(cache.getAuth("token-a"));
+
+        // a logout that runs between the lookup's store read and its caching the token
+        store.beforeDelete = null;
+        store.createAuth(ALICE);
+        store.afterRead = () -> {
+            store.afterRead = null;
+            try {
+                cache.deleteAuth("token-a");
+            } catch (DataAccessException ex) {
+                throw new AssertionError(ex);
+            }
+        };
+        Assertions.assertEquals(ALICE, cache.getAuth("token-a"));
+        Assertions.assertNull(cache.getAuth("token-a"));
+        Assertions.assertEquals(0, cache.stats().size());
+    }
+
+    @Test
+    @DisplayName("Expired Tokens Are Checked Again")
+    public void expiry() throws Exception {
+        CountingStore store = new CountingStore();
+        store.createAuth(ALICE);
+        AtomicLong now = new AtomicLong();
+        CachingAuthDAO cache = new CachingAuthDAO(store, new CachingAuthDAO.Settings(10, 1000), now::get);
+        cache.getAuth("token-a");
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        cache.getAuth("token-a");
+        Assertions.assertEquals(1, store.reads);
+
+        // revoked behind the cache's back, which it notices once the entry expires
+        store.deleteAuth("token-a");
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        Assertions.assertNull(cache.getAuth("token-a"));
+        Assertions.assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    @DisplayName("Size Limit Evicts Expired Tokens First")
+    public void sizeLimit() throws Exception {
+        CountingStore store = new CountingStore();
+        AtomicLong now = new AtomicLong();
+        CachingAuthDAO cache = new CachingAuthDAO(store, new CachingAuthDAO.Settings(3, 1000), now::get);
+        cache.createAuth(new AuthData("old", "alice"));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        cache.createAuth(new AuthData("b", "bob"));
+        cache.createAuth(new AuthData("c", "carol"));
+        cache.createAuth(new AuthData("d", "dave"));
+        Assertions.assertEquals(3, cache.stats().size());
+        Assertions.assertEquals(1, cache.stats().evictions());
+
+        for (int i = 0; i < 10; i++) {
+            cache.createAuth(new AuthData("t" + i, "user" + i));
+        }
+        Assertions.assertEquals(3, cache.stats().size());
+        // evicted tokens are still valid, just read from the store again
+        Assertions.assertEquals("bob", cache.getAuth("b").username());
+    }
+
+    @Test
+    @DisplayName("Full Cache Sweeps A Batch Per Insert")
+    public void boundedSweep() throws Exception {
+        CountingStore store = new CountingStore();
+        AtomicLong now = new AtomicLong();
+        CachingAuthDAO cache = new CachingAuthDAO(store, new CachingAuthDAO.Settings(100, 1000), now::get);
+        for (int i = 0; i < 100; i++) {
+            cache.createAuth(new AuthData("t" + i, "user" + i));
+        }
+        now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+
+        // every token has expired, but one insert only looks at a batch of them
+        cache.createAuth(ALICE);
+        Assertions.assertEquals(CachingAuthDAO.SWEEP_BATCH, cache.stats().evictions());
+        Assertions.assertEquals(101 - CachingAuthDAO.SWEEP_BATCH, cache.stats().size());
+
+        // later sweeps carry on where that one stopped
+        for (int i = 0; i < 100; i++) {
+            cache.createAuth(new AuthData("n" + i, "new" + i));
+        }
+        Assertions.assertEquals(100, cache.stats().size());
+        Assertions.assertEquals(101, cache.stats().evictions());
+    }
+
+    @Test
+    @DisplayName("Clear Empties The Cache")
+    public void clear() throws Exception {
+        CountingStore store = new CountingStore();
+        CachingAuthDAO cache = new CachingAuthDAO(store, new CachingAuthDAO.Settings(10, 60_000));
+        cache.createAuth(ALICE);
+        cache.clear();
+        Assertions.assertNull(cache.getAuth("token-a"));
+        Assertions.assertEquals(0, cache.stats().size());
+    }
+
+    private static void lookUp(CachingAuthDAO cache) {
+        try {
+            cache.getAuth("token-a");
+        } catch (DataAccessException ex) {
+            throw new AssertionError(ex);
+        }
+    }
+
+    /**
+     * An in-memory store that counts lookups, and can run a hook in the middle of a read
+     * or delete to stand in for another thread
+     */
+    private static class CountingStore extends MemoryAuthDAO {
+        volatile int reads;
+        volatile Runnable afterRead;
+        volatile Runnable beforeDelete;
+
+        @Override
+        public AuthData getAuth(String authToken) {
+            reads++;
+            AuthData auth = super.getAuth(authToken);
+            Runnable hook = afterRead;
+            if (hook != null) {
+                hook.run();
+            }
+            return auth;
+        }
+
+        @Override
+        public void deleteAuth(String authToken) {
+            Runnable hook = beforeDelete;
+            if (hook != null) {
+                hook.run();
+            }
+            super.deleteAuth(authToken);
+        }
+    }
+}
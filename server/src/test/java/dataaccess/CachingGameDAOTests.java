@@ -0,0 +1,235 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import model.GameData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks that the game cache serves reads from memory, writes changes behind in
+ * order, and saves everything on close
+ */
+public class CachingGameDAOTests {
+
+    @Test
+    @DisplayName("Reads Are Served From Memory")
+    public void readsFromMemory() throws Exception {
+        CountingStore store = new CountingStore();
+        int gameID = store.createGame("game");
+        try (CachingGameDAO cache = new CachingGameDAO(store, new CachingGameDAO.Settings(10, 60_000))) {
+            for (int i = 0; i < 5; i++) {
+                Assertions.assertEquals("game", cache.getGame(gameID).gameName());
+            }
+            Assertions.assertEquals(1, store.reads);
+            Assertions.assertEquals(4, cache.stats().hits());
+            Assertions.assertNull(cache.getGame(999));
+        }
+    }
+
+    @Test
+    @DisplayName("Returned Games Don't Change The Cache")
+    public void returnedGamesAreCopies() throws Exception {
+        CountingStore store = new CountingStore();
+        int gameID = store.createGame("game");
+        try (CachingGameDAO cache = new CachingGameDAO(store, new CachingGameDAO.Settings(10, 60_000))) {
+            GameData data = cache.getGame(gameID);
+            data.game().makeMove(move(2, 5, 4, 5));
+            Assertions.assertEquals(ChessGame.TeamColor.WHITE, cache.getGame(gameID).game().getTeamTurn());
+        }
+    }
+
+    @Test
+    @DisplayName("Listed Games Are Read-Only")
+    public void listedGamesAreSnapshots() throws Exception {
+        CountingStore store = new CountingStore();
+        int gameID = store.createGame("game");
+        try (CachingGameDAO cache = new CachingGameDAO(store, new CachingGameDAO.Settings(10, 60_000))) {
+            GameData listed = cache.listGames().iterator().next();
+            Assertions.assertThrows(UnsupportedOperationException.class,
+                    () -> listed.game().makeMove(move(2, 5, 4, 5)));
+            Assertions.assertEquals(ChessGame.TeamColor.WHITE, store.getGame(gameID).game().getTeamTurn());
+        }
+    }
+
+    @Test
+    @DisplayName("Updates Are Written Behind And Coalesced")
+    public void writeBehind() throws Exception {
+        CountingStore store = new CountingStore();
+        int gameID = store.createGame("game");
+        try (CachingGameDAO cache = new CachingGameDAO(store, new CachingGameDAO.Settings(10, 60_000))) {
+            GameData data = cache.getGame(gameID);
+            data.game().makeMove(move(2, 5, 4, 5));
+            cache.updateGame(data);
+            data.game().makeMove(move(7, 5, 5, 5));
+            cache.updateGame(data);
+
+            Assertions.assertTrue(store.written.isEmpty());
+            Assertions.assertEquals(ChessGame.TeamColor.WHITE, cache.getGame(gameID).game().getTeamTurn());
+            Assertions.assertEquals(1, cache.stats().pendingWrites());
+
+            cache.flush();
+            Assertions.assertEquals(1, store.written.size());
+            Assertions.assertEquals(2, store.getGame(gameID).game().getMoveHistory().size());
+            Assertions.assertEquals(1, cache.stats().coalesced());
+            Assertions.assertEquals(0, cache.stats().pendingWrites());
+        }
+    }
+
+    @Test
+    @DisplayName("Background Flush Bounds Staleness")
+    public void backgroundFlush() throws Exception {
+        CountingStore store = new CountingStore();
+        int gameID = store.createGame("game");
+        try (CachingGameDAO cache = new CachingGameDAO(store, new CachingGameDAO.Settings(10, 20))) {
+            GameData data = cache.getGame(gameID);
+            cache.updateGame(data.withGame(ChessGame.fromFen("4k3/8/8/8/8/8/8/4K3 w - - 0 1")));
+            long deadline = System.currentTimeMillis() + 2000;
+            while (store.written.isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Assertions.assertEquals("4k3/8/8/8/8/8/8/4K3 w - - 0 1", store.getGame(gameID).game().toFen());
+        }
+    }
+
+    @Test
+    @DisplayName("Close Saves Pending Updates")
+    public void closeSaves() throws Exception {
+        CountingStore store = new CountingStore();
+        int first = store.createGame("first");
+        int second = store.createGame("second");
+        CachingGameDAO cache = new CachingGameDAO(store, new CachingGameDAO.Settings(10, 60_000));
+        cache.updateGame(cache.getGame(first).withGame(ChessGame.fromFen("4k3/8/8/8/8/8/8/4K3 w - - 0 1")));
+        cache.updateGame(cache.getGame(second).withGame(ChessGame.fromFen("4k3/8/8/8/8/8/8/4K3 b - - 0 1")));
+        cache.close();
+
+        Assertions.assertEquals(2, store.written.size());
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, store.getGame(second).game().getTeamTurn());
+    }
+
+    @Test
+    @DisplayName("Failed Writes Stay Queued")
+    public void failedWritesRetry() throws Exception {
+        CountingStore store = new CountingStore();
+        int gameID = store.createGame("game");
+        try (CachingGameDAO cache = new CachingGameDAO(store, new CachingGameDAO.Settings(10, 60_000))) {
+            cache.updateGame(cache.getGame(gameID));
+            store.failing = true;
+            Assertions.assertThrows(DataAccessException.class, cache::flush);
+            Assertions.assertEquals(1, cache.stats().pendingWrites());
+            store.failing = false;
+            cache.flush();
+            Assertions.assertEquals(0, cache.stats().pendingWrites());
+        }
+    }
+
+    @Test
+    @DisplayName("Only Written Games Are Evicted")
+    public void eviction() throws Exception {
+        CountingStore store = new CountingStore();
+        try (CachingGameDAO cache = new CachingGameDAO(store, new CachingGameDAO.Settings(2, 60_000))) {
+            List<Integer> ids = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                ids.add(store.createGame("game" + i));
+                cache.updateGame(cache.getGame(ids.get(i)));
+            }
+            Assertions.assertEquals(4, cache.stats().resident());
+            cache.flush();
+            Assertions.assertEquals(2, cache.stats().resident());
+            Assertions.assertThrows(DataAccessException.class,
+                    () -> cache.updateGame(new GameData(999, null, null, "missing", new ChessGame())));
+        }
+    }
+
+    @Test
+    @DisplayName("Clear During A Read Isn't Undone")
+    public void clearRacingRead() throws Exception {
+        CountingStore store = new CountingStore();
+        int gameID = store.createGame("game");
+        try (CachingGameDAO cache = new CachingGameDAO(store, new CachingGameDAO.Settings(10, 60_000))) {
+            store.onRead = () -> clear(cache);
+            Assertions.assertNotNull(cache.getGame(gameID));
+            Assertions.assertNull(cache.getGame(gameID));
+            Assertions.assertEquals(0, cache.stats().resident());
+        }
+    }
+
+    @Test
+    @DisplayName("Clear During An Update Isn't Undone")
+    public void clearRacingUpdate() throws Exception {
+        CountingStore store = new CountingStore();
+        int gameID = store.createGame("game");
+        try (CachingGameDAO cache = new CachingGameDAO(store, new CachingGameDAO.Settings(10, 60_000))) {
+            // the update finds the game in the store, then the clear deletes it
+            store.onRead = () -> clear(cache);
+            Assertions.assertThrows(DataAccessException.class,
+                    () -> cache.updateGame(new GameData(gameID, null, null, "game", new ChessGame())));
+            Assertions.assertEquals(0, cache.stats().pendingWrites());
+            Assertions.assertNull(cache.getGame(gameID));
+        }
+    }
+
+    @Test
+    @DisplayName("Updates To Deleted Games Are Dropped")
+    public void deletedGamesAreDropped() throws Exception {
+        CountingStore store = new CountingStore();
+        int gameID = store.createGame("game");
+        try (CachingGameDAO cache = new CachingGameDAO(store, new CachingGameDAO.Settings(10, 60_000))) {
+            cache.updateGame(cache.getGame(gameID));
+            store.clear();
+            cache.flush();
+            Assertions.assertEquals(0, cache.stats().pendingWrites());
+            Assertions.assertEquals(1, cache.stats().dropped());
+            Assertions.assertNull(cache.getGame(gameID));
+        }
+    }
+
+    private static void clear(CachingGameDAO cache) {
+        try {
+            cache.clear();
+        } catch (DataAccessException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+        return new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null);
+    }
+
+    /**
+     * An in-memory store that counts reads and records writes
+     */
+    private static class CountingStore extends MemoryGameDAO {
+        volatile int reads;
+        final List<GameData> written = new ArrayList<>();
+        volatile boolean failing;
+        // run once by the next read, after it has read the game, to race it with other work
+        volatile Runnable onRead;
+
+        @Override
+        public GameData getGame(int gameID) {
+            reads++;
+            GameData game = super.getGame(gameID);
+            Runnable hook = onRead;
+            if (hook != null) {
+                onRead = null;
+                hook.run();
+            }
+            return game;
+        }
+
+        @Override
+        public synchronized void updateGame(GameData game) throws DataAccessException {
+            if (failing) {
+                throw new DataAccessException("store unavailable");
+            }
+            super.updateGame(game);
+            written.add(game);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package dataaccess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Checks the connection pool against in-process stand-in connections, so no
+ * database server is needed
+ */
+public class ConnectionPoolTests {
+
+    @Test
+    @DisplayName("Connections Are Reused")
+    public void connectionsAreReused() throws Exception {
+        StubDatabase database = new StubDatabase();
+        try (ConnectionPool pool = new ConnectionPool(database, settings(1, 2, 100, 0))) {
+            Assertions.assertEquals(1, database.opened.size());
+            for (int i = 0; i < 5; i++) {
+                try (Connection connection = pool.borrow()) {
+                    Assertions.assertFalse(connection.isClosed());
+                    connection.setAutoCommit(false);
+                }
+            }
+            Assertions.assertEquals(1, database.opened.size());
+            Assertions.assertTrue(database.opened.get(0).autoCommit, "Returned connection should be reset");
+            Assertions.assertEquals(5, pool.stats().borrows());
+            Assertions.assertEquals(1, pool.stats().idle());
+        }
+        Assertions.assertTrue(database.opened.get(0).closed);
+    }
+
+    @Test
+    @DisplayName("Borrow Waits Then Times Out At Max Size")
+    public void boundedSize() throws Exception {
+        StubDatabase database = new StubDatabase();
+        try (ConnectionPool pool = new ConnectionPool(database, settings(0, 2, 50, 0))) {
+            Connection first = pool.borrow();
+            Connection second = pool.borrow();
+            Assertions.assertThrows(DataAccessException.class, pool::borrow);
+            Assertions.assertEquals(1, pool.stats().timeouts());
+
+            first.close();
+            try (Connection third = pool.borrow()) {
+                Assertions.assertEquals(2, database.opened.size());
+                Assertions.assertEquals(2, pool.stats().borrowed());
+            }
+            second.close();
+            Assertions.assertEquals(2, pool.stats().idle());
+        }
+    }
+
+    @Test
+    @DisplayName("Dead Connections Are Replaced On Borrow")
+    public void validationOnBorrow() throws Exception {
+        StubDatabase database = new StubDatabase();
+        try (ConnectionPool pool = new ConnectionPool(database, settings(1, 1, 100, 0))) {
+            database.opened.get(0).valid = false;
+            try (Connection connection = pool.borrow()) {
+                Assertions.assertFalse(connection.isClosed());
+            }
+            Assertions.assertEquals(2, database.opened.size());
+            Assertions.assertTrue(database.opened.get(0).closed);
+            Assertions.assertEquals(1, pool.stats().validationFailures());
+        }
+    }
+
+    @Test
+    @DisplayName("Closed Proxy Rejects Use")
+    public void closedProxyRejectsUse() throws Exception {
+        StubDatabase database = new StubDatabase();
+        try (ConnectionPool pool = new ConnectionPool(database, settings(0, 1, 100, 0))) {
+            Connection connection = pool.borrow();
+            connection.close();
+            connection.close();
+            Assertions.assertTrue(connection.isClosed());
+            Assertions.assertThrows(SQLException.class, () -> connection.prepareStatement("SELECT 1"));
+            Assertions.assertFalse(database.opened.get(0).closed);
+            Assertions.assertEquals(0, pool.stats().borrowed());
+        }
+    }
+
+    @Test
+    @DisplayName("Held Connections Are Reported As Leaks")
+    public void leakDetection() throws Exception {
+        StubDatabase database = new StubDatabase();
+        try (ConnectionPool pool = new ConnectionPool(database, settings(0, 1, 100, 20))) {
+            Connection connection = pool.borrow();
+            long deadline = System.currentTimeMillis() + 2000;
+            while (pool.stats().leaks() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Assertions.assertEquals(1, pool.stats().leaks());
+            connection.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Prepared Statements Are Cached Per Connection")
+    public void statementCache() throws Exception {
+        StubDatabase database = new StubDatabase();
+        try (ConnectionPool pool = new ConnectionPool(database, settings(1, 1, 100, 0))) {
+            for (int i = 0; i < 3; i++) {
+                try (Connection connection = pool.borrow();
+                     PreparedStatement statement = connection.prepareStatement("SELECT ?")) {
+                    statement.setObject(1, i);
+                    // the same SQL while the first is still open gets a statement of its own
+                    try (PreparedStatement nested = connection.prepareStatement("SELECT ?")) {
+                        Assertions.assertNotSame(statement, nested);
+                    }
+                }
+            }
+            Assertions.assertEquals(4, database.prepared.size());
+            Assertions.assertEquals(2, pool.stats().statementHits());
+            Assertions.assertEquals(4, pool.stats().statementMisses());
+
+            PreparedStatement stale;
+            try (Connection connection = pool.borrow()) {
+                stale = connection.prepareStatement("SELECT ?");
+                stale.close();
+                Assertions.assertTrue(stale.isClosed());
+                Assertions.assertThrows(SQLException.class, () -> stale.setObject(1, 1));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Cached Statement Belongs To The Current Borrower")
+    public void statementConnectionFollowsBorrower() throws Exception {
+        StubDatabase database = new StubDatabase();
+        try (ConnectionPool pool = new ConnectionPool(database, settings(1, 1, 100, 0))) {
+            try (Connection connection = pool.borrow()) {
+                connection.prepareStatement("SELECT 1").close();
+            }
+            try (Connection connection = pool.borrow();
+                 PreparedStatement statement = connection.prepareStatement("SELECT 1")) {
+                Assertions.assertEquals(1, pool.stats().statementHits());
+                Assertions.assertSame(connection, statement.getConnection());
+                Assertions.assertFalse(statement.getConnection().isClosed());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Statement Cache Drops Least Recently Used")
+    public void statementCacheEviction() throws Exception {
+        StubDatabase database = new StubDatabase();
+        try (ConnectionPool pool = new ConnectionPool(database, settings(1, 1, 100, 0))) {
+            for (String sql : new String[]{"A", "B", "C", "D", "E", "A"}) {
+                try (Connection connection = pool.borrow()) {
+                    connection.prepareStatement(sql).close();
+                }
+            }
+            // a cache of 4 has lost A to E by the time A comes round again
+            Assertions.assertEquals(6, database.prepared.size());
+            Assertions.assertEquals(0, pool.stats().statementHits());
+        }
+    }
+
+    @Test
+    @DisplayName("Connection Returned During Close Is Closed")
+    public void returnDuringClose() throws Exception {
+        StubDatabase database = new StubDatabase();
+        ConnectionPool pool = new ConnectionPool(database, settings(1, 1, 100, 0));
+        Connection connection = pool.borrow();
+        connection.setAutoCommit(false);
+        // the pool closes after giveBack has decided the connection is reusable
+        database.onRollback = pool::close;
+        connection.close();
+
+        Assertions.assertTrue(database.opened.get(0).closed);
+        Assertions.assertEquals(0, pool.stats().idle());
+    }
+
+    private static ConnectionPool.Settings settings(int min, int max, long borrowTimeout, long leakThreshold) {
+        return new ConnectionPool.Settings(min, max, borrowTimeout, leakThreshold, 1, 4);
+    }
+}
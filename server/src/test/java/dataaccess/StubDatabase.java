@@ -0,0 +1,134 @@
+package dataaccess;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * An in-process stand-in for a database: hands out proxy connections and statements
+ * that record what was done to them, so data access code can be tested without MySQL
+ */
+class StubDatabase implements ConnectionPool.ConnectionFactory {
+    final List<StubConnection> opened = new CopyOnWriteArrayList<>();
+    // every SQL string passed to a physical connection's prepareStatement
+    final List<String> prepared = new CopyOnWriteArrayList<>();
+    // the rows of each executeBatch, as "sql [params]"
+    final List<List<String>> batches = new CopyOnWriteArrayList<>();
+    final List<String> committed = new CopyOnWriteArrayList<>();
+    volatile int rollbacks;
+    // executeBatch on this SQL throws, to test failure handling
+    volatile String failingSql;
+    // executeBatch on this SQL throws an unchecked exception, as a misbehaving driver might
+    volatile String brokenSql;
+    // run by every rollback, to interleave other work with a connection being handed back
+    volatile Runnable onRollback;
+
+    static class StubConnection {
+        volatile boolean valid = true;
+        volatile boolean closed;
+        volatile boolean autoCommit = true;
+        final List<String> uncommitted = new ArrayList<>();
+    }
+
+    @Override
+    public Connection open() {
+        StubConnection stub = new StubConnection();
+        opened.add(stub);
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "isValid" -> stub.valid && !stub.closed;
+                    case "isClosed" -> stub.closed;
+                    case "close" -> {
+                        stub.closed = true;
+                        yield null;
+                    }
+                    case "getAutoCommit" -> stub.autoCommit;
+                    case "setAutoCommit" -> {
+                        stub.autoCommit = (Boolean) args[0];
+                        yield null;
+                    }
+                    case "commit" -> {
+                        committed.addAll(stub.uncommitted);
+                        stub.uncommitted.clear();
+                        yield null;
+                    }
+                    case "rollback" -> {
+                        Runnable hook = onRollback;
+                        if (hook != null) {
+                            hook.run();
+                        }
+                        if (!stub.uncommitted.isEmpty()) {
+                            rollbacks++;
+                        }
+                        stub.uncommitted.clear();
+                        yield null;
+                    }
+                    case "prepareStatement" -> statement(stub, (String) args[0]);
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "StubConnection";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private PreparedStatement statement(StubConnection connection, String sql) {
+        prepared.add(sql);
+        Object[] params = new Object[8];
+        List<String> rows = new ArrayList<>();
+        boolean[] closed = new boolean[1];
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "setObject", "setString", "setInt" -> {
+                        params[(Integer) args[0] - 1] = args[1];
+                        yield null;
+                    }
+                    case "clearParameters" -> {
+                        Arrays.fill(params, null);
+                        yield null;
+                    }
+                    case "addBatch" -> {
+                        rows.add(sql + " " + Arrays.toString(Arrays.copyOf(params, count(params))));
+                        yield null;
+                    }
+                    case "clearBatch" -> {
+                        rows.clear();
+                        yield null;
+                    }
+                    case "executeBatch" -> {
+                        if (sql.equals(failingSql)) {
+                            throw new SQLException("stub failure");
+                        }
+                        if (sql.equals(brokenSql)) {
+                            throw new IllegalStateException("stub driver bug");
+                        }
+                        batches.add(List.copyOf(rows));
+                        connection.uncommitted.addAll(rows);
+                        int[] counts = new int[rows.size()];
+                        rows.clear();
+                        yield counts;
+                    }
+                    case "close" -> {
+                        closed[0] = true;
+                        yield null;
+                    }
+                    case "isClosed" -> closed[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "StubStatement " + sql;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static int count(Object[] params) {
+        int count = params.length;
+        while (count > 0 && params[count - 1] == null) {
+            count--;
+        }
+        return count;
+    }
+}
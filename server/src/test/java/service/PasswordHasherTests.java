@@ -0,0 +1,71 @@
+package service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+public class PasswordHasherTests {
+
+    @Test
+    @DisplayName("Hash Then Verify")
+    public void hashThenVerify() throws Exception {
+        try (PasswordHasher hasher = new PasswordHasher(new PasswordHasher.Settings(2, 8, 4, 1))) {
+            String hash = hasher.hash("hunter2").get();
+            Assertions.assertNotEquals("hunter2", hash);
+            Assertions.assertTrue(hasher.verify("hunter2", hash).get());
+            Assertions.assertFalse(hasher.verify("hunter3", hash).get());
+
+            PasswordHasher.Stats stats = hasher.stats();
+            Assertions.assertEquals(1, stats.hashLatency().count());
+            Assertions.assertEquals(2, stats.verifyLatency().count());
+            Assertions.assertEquals(3, stats.queueWait().count());
+            Assertions.assertEquals(Map.of(4, 2L), stats.verifiedCosts());
+        }
+    }
+
+    @Test
+    @DisplayName("Full Queue Is Refused")
+    public void fullQueueIsRefused() throws Exception {
+        try (PasswordHasher hasher = new PasswordHasher(new PasswordHasher.Settings(1, 1, 14, 3))) {
+            // one running and one waiting fills the executor
+            CompletableFuture<String> running = hasher.hash("first");
+            CompletableFuture<String> waiting = hasher.hash("second");
+            ServiceUnavailableException ex = Assertions.assertThrows(ServiceUnavailableException.class,
+                    () -> hasher.hash("third"));
+            Assertions.assertEquals(3, ex.getRetryAfterSeconds());
+            Assertions.assertEquals(1, hasher.stats().rejected());
+            Assertions.assertFalse(running.isCompletedExceptionally());
+            Assertions.assertFalse(waiting.isCompletedExceptionally());
+        }
+    }
+
+    @Test
+    @DisplayName("Closed Hasher Refuses Work Without Counting It")
+    public void closedHasherRefuses() {
+        PasswordHasher hasher = new PasswordHasher(new PasswordHasher.Settings(1, 1, 4, 3));
+        hasher.close();
+        Assertions.assertThrows(IllegalStateException.class, () -> hasher.hash("late"));
+        Assertions.assertEquals(0, hasher.stats().rejected());
+    }
+
+    @Test
+    @DisplayName("Histogram Percentiles")
+    public void histogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(3_000);
+        }
+        histogram.record(5_000_000);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        Assertions.assertEquals(100, snapshot.count());
+        Assertions.assertEquals(4, snapshot.p50Micros());
+        Assertions.assertEquals(4, snapshot.p99Micros());
+        Assertions.assertEquals(99, snapshot.buckets()[2]);
+        Assertions.assertEquals(1, snapshot.buckets()[13]);
+        Assertions.assertEquals(52.97, snapshot.meanMicros(), 0.001);
+    }
+}
@@ -0,0 +1,199 @@
+package chess;
+
+/**
+ * Precomputed attack sets, built once when the class loads.
+ * <p>
+ * Knights, kings and pawns use a plain lookup per square. Rooks and bishops use
+ * magic bitboards: the relevant blockers of a square are multiplied by a magic
+ * number and shifted down to index a table that holds every possible ray set,
+ * so a sliding attack is a mask, a multiply and an array read.
+ */
+final class AttackTables {
+    static final long[] KNIGHT = new long[64];
+    static final long[] KING = new long[64];
+    /**
+     * Squares a pawn of the given team attacks, indexed [team ordinal][square]
+     */
+    static final long[][] PAWN = new long[2][64];
+    /**
+     * Squares strictly between two squares on a shared rank, file or diagonal, indexed
+     * [from][to]; empty when the squares aren't aligned
+     */
+    static final long[][] BETWEEN = new long[64][64];
+    /**
+     * The whole rank, file or diagonal through two aligned squares, edge to edge, indexed
+     * [from][to]; empty when the squares aren't aligned
+     */
+    static final long[][] LINE = new long[64][64];
+
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    private static final Magic[] ROOK_MAGICS = new Magic[64];
+    private static final Magic[] BISHOP_MAGICS = new Magic[64];
+
+    // per-rank seeds that find every magic in a few thousand tries
+    private static final long[] SEEDS = {728, 10316, 55013, 32803, 12281, 15100, 16645, 255};
+
+    static {
+        int[][] knightJumps = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
+        int[][] kingSteps = {{1, 1}, {1, 0}, {1, -1}, {0, 1}, {0, -1}, {-1, 1}, {-1, 0}, {-1, -1}};
+        for (int square = 0; square < 64; square++) {
+            KNIGHT[square] = stepAttacks(square, knightJumps);
+            KING[square] = stepAttacks(square, kingSteps);
+            PAWN[0][square] = stepAttacks(square, new int[][]{{1, 1}, {1, -1}});
+            PAWN[1][square] = stepAttacks(square, new int[][]{{-1, 1}, {-1, -1}});
+        }
+        initMagics(ROOK_DIRECTIONS, ROOK_MAGICS);
+        initMagics(BISHOP_DIRECTIONS, BISHOP_MAGICS);
+        initLines();
+    }
+
+    private AttackTables() {
+    }
+
+    static long rookAttacks(int square, long occupied) {
+        return ROOK_MAGICS[square].attacks(occupied);
+    }
+
+    static long bishopAttacks(int square, long occupied) {
+        return BISHOP_MAGICS[square].attacks(occupied);
+    }
+
+    static long queenAttacks(int square, long occupied) {
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+
+    private static void initLines() {
+        for (int from = 0; from < 64; from++) {
+            for (int to = 0; to < 64; to++) {
+                if (from == to) {
+                    continue;
+                }
+                long ends = (1L << from) | (1L << to);
+                if ((rookAttacks(from, 0L) & (1L << to)) != 0) {
+                    LINE[from][to] = (rookAttacks(from, 0L) & rookAttacks(to, 0L)) | ends;
+                    BETWEEN[from][to] = rookAttacks(from, ends) & rookAttacks(to, ends);
+                } else if ((bishopAttacks(from, 0L) & (1L << to)) != 0) {
+                    LINE[from][to] = (bishopAttacks(from, 0L) & bishopAttacks(to, 0L)) | ends;
+                    BETWEEN[from][to] = bishopAttacks(from, ends) & bishopAttacks(to, ends);
+                }
+            }
+        }
+    }
+
+    private static long stepAttacks(int square, int[][] steps) {
+        long attacks = 0L;
+        int row = Bitboards.row(square);
+        int col = Bitboards.column(square);
+        for (int[] step : steps) {
+            int r = row + step[0];
+            int c = col + step[1];
+            if (r >= 1 && r <= 8 && c >= 1 && c <= 8) {
+                attacks |= 1L << Bitboards.square(r, c);
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * Walks each ray until it leaves the board or hits a blocker (the blocker is included)
+     */
+    private static long slidingAttacks(int square, long occupied, int[][] directions) {
+        long attacks = 0L;
+        for (int[] dir : directions) {
+            int row = Bitboards.row(square) + dir[0];
+            int col = Bitboards.column(square) + dir[1];
+            while (row >= 1 && row <= 8 && col >= 1 && col <= 8) {
+                long bit = 1L << Bitboards.square(row, col);
+                attacks |= bit;
+                if ((occupied & bit) != 0) {
+                    break;
+                }
+                row += dir[0];
+                col += dir[1];
+            }
+        }
+        return attacks;
+    }
+
+    private static void initMagics(int[][] directions, Magic[] magics) {
+        for (int square = 0; square < 64; square++) {
+            // blockers on the board edge never change the attack set, so leave them out of the mask
+            long edges = ((0xFFL | 0xFF00000000000000L) & ~(0xFFL << ((square >>> 3) << 3)))
+                    | ((0x0101010101010101L | 0x8080808080808080L) & ~(0x0101010101010101L << (square & 7)));
+            long mask = slidingAttacks(square, 0L, directions) & ~edges;
+            int bits = Long.bitCount(mask);
+            int size = 1 << bits;
+
+            long[] occupancies = new long[size];
+            long[] references = new long[size];
+            long subset = 0L;
+            int count = 0;
+            do {
+                occupancies[count] = subset;
+                references[count] = slidingAttacks(square, subset, directions);
+                count++;
+                subset = (subset - mask) & mask;
+            } while (subset != 0);
+
+            Magic magic = new Magic(mask, 64 - bits, new long[size]);
+            int[] epoch = new int[size];
+            long seed = SEEDS[square >>> 3];
+            int attempt = 0;
+            boolean found = false;
+            while (!found) {
+                do {
+                    seed = xorshift(seed);
+                    long a = seed;
+                    seed = xorshift(seed);
+                    long b = seed;
+                    seed = xorshift(seed);
+                    magic.number = a * 0x2545F4914F6CDD1DL & b * 0x2545F4914F6CDD1DL & seed * 0x2545F4914F6CDD1DL;
+                } while (Long.bitCount((magic.number * mask) >>> 56) < 6);
+
+                attempt++;
+                found = true;
+                for (int i = 0; i < count; i++) {
+                    int index = magic.index(occupancies[i]);
+                    if (epoch[index] < attempt) {
+                        epoch[index] = attempt;
+                        magic.attacks[index] = references[i];
+                    } else if (magic.attacks[index] != references[i]) {
+                        found = false;
+                        break;
+                    }
+                }
+            }
+            magics[square] = magic;
+        }
+    }
+
+    private static long xorshift(long s) {
+        s ^= s >>> 12;
+        s ^= s << 25;
+        s ^= s >>> 27;
+        return s;
+    }
+
+    private static final class Magic {
+        private final long mask;
+        private final int shift;
+        private final long[] attacks;
+        private long number;
+
+        private Magic(long mask, int shift, long[] attacks) {
+            this.mask = mask;
+            this.shift = shift;
+            this.attacks = attacks;
+        }
+
+        private int index(long occupied) {
+            return (int) (((occupied & mask) * number) >>> shift);
+        }
+
+        private long attacks(long occupied) {
+            return attacks[index(occupied)];
+        }
+    }
+}
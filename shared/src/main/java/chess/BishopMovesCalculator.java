@@ -1,24 +1,12 @@
 package chess;
 
-import java.util.ArrayList;
-import java.util.Collection;
-
-import static chess.MoveCalculatorUtils.slidingMoves;
+import static chess.MoveCalculatorUtils.targetMoves;
 
 public class BishopMovesCalculator implements PieceMovesCalculator {
     @Override
-    public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        Collection<ChessMove> validMoves = new ArrayList<>();
-
-        int[][] directions = {
-                {-1,  1},
-                {-1, -1},
-                { 1,  1},
-                { 1, -1}
-        };
-
-        slidingMoves(board, myPosition, directions, validMoves);
+    public void pieceMoves(ChessBoard board, int square, MoveList moves) {
+        long targets = AttackTables.bishopAttacks(square, board.bitboards().occupied);
 
-        return validMoves;
+        targetMoves(board, square, targets, moves);
     }
 }
@@ -0,0 +1,101 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Bitboard storage for a chess board: one 64-bit set per kind of piece
+ * (six types for each of the two teams) plus occupancy per team and overall.
+ * <p>
+ * Square 0 is row 1, column 1 (a1) and square 63 is row 8, column 8 (h8),
+ * so bit {@code (row - 1) * 8 + (col - 1)} is set when a piece is on that square.
+ */
+final class Bitboards {
+    static final int KINDS = 12;
+
+    final long[] pieces = new long[KINDS];
+    final long[] teams = new long[2];
+    long occupied;
+
+    /**
+     * @return the square index for a 1-based row and column
+     */
+    static int square(int row, int col) {
+        return ((row - 1) << 3) | (col - 1);
+    }
+
+    static int row(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    static int column(int square) {
+        return (square & 7) + 1;
+    }
+
+    /**
+     * @return index into {@link #pieces} for the given team and piece type
+     */
+    static int kind(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    static int kind(ChessPiece piece) {
+        return kind(piece.getTeamColor(), piece.getPieceType());
+    }
+
+    static int team(int kind) {
+        return kind >= 6 ? 1 : 0;
+    }
+
+    void add(int square, int kind) {
+        long bit = 1L << square;
+        pieces[kind] |= bit;
+        teams[team(kind)] |= bit;
+        occupied |= bit;
+    }
+
+    void remove(int square, int kind) {
+        long bit = ~(1L << square);
+        pieces[kind] &= bit;
+        teams[team(kind)] &= bit;
+        occupied &= bit;
+    }
+
+    long pieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return pieces[kind(color, type)];
+    }
+
+    long team(ChessGame.TeamColor color) {
+        return teams[color.ordinal()];
+    }
+
+    void copyFrom(Bitboards other) {
+        System.arraycopy(other.pieces, 0, pieces, 0, KINDS);
+        System.arraycopy(other.teams, 0, teams, 0, 2);
+        occupied = other.occupied;
+    }
+
+    void clear() {
+        Arrays.fill(pieces, 0L);
+        Arrays.fill(teams, 0L);
+        occupied = 0L;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Bitboards that = (Bitboards) o;
+        return Arrays.equals(pieces, that.pieces);
+    }
+
+    @Override
+    public int hashCode() {
+        long hash = 0;
+        for (long set : pieces) {
+            // spread each set so a piece on square s and s + 32 doesn't fold to the same bits
+            hash = hash * 31 + set * 0x9E3779B97F4A7C15L;
+        }
+        return Long.hashCode(hash);
+    }
+}
@@ -1,18 +1,78 @@
 package chess;
 
+import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+import com.google.gson.annotations.JsonAdapter;
+
+import java.lang.reflect.Type;
 import java.util.Arrays;
-import java.util.Objects;
 
 /**
  * A chessboard that can hold and rearrange chess pieces.
  * <p>
+ * Only the square array is serialized. The bitboards, Zobrist key and material counts
+ * are rebuilt from it when a board is read back, so they can't disagree with the pieces.
+ * <p>
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessBoard.Json.class)
 public class ChessBoard {
-    ChessPiece[][] squares = new ChessPiece[8][8];
+    static final int NO_SQUARE = 64;
+
+    // material value of each piece kind in centipawns; kings don't count
+    private static final int[] MATERIAL_VALUES = {0, 900, 300, 300, 500, 100, 0, 900, 300, 300, 500, 100};
+
+    private final ChessPiece[] squares = new ChessPiece[64];
+    private final transient Bitboards bitboards = new Bitboards();
+    // Zobrist key of the pieces on the board, updated on every addPiece
+    private transient long zobristKey;
+    // total MATERIAL_VALUES of each team's pieces, updated on every addPiece
+    private final transient int[] material = new int[2];
+    // set on snapshots, which reject every change
+    private final transient boolean readOnly;
+
     public ChessBoard() {
-        
+        this.readOnly = false;
+    }
+
+    /**
+     * Creates an independent copy of a board. Pieces are immutable, so only the
+     * square array and bitboards are copied, never the pieces themselves.
+     *
+     * @param other the board to copy
+     */
+    public ChessBoard(ChessBoard other) {
+        this(other, false);
+    }
+
+    private ChessBoard(ChessBoard other, boolean readOnly) {
+        System.arraycopy(other.squares, 0, squares, 0, 64);
+        bitboards.copyFrom(other.bitboards);
+        zobristKey = other.zobristKey;
+        material[0] = other.material[0];
+        material[1] = other.material[1];
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * Takes a read-only copy of the board that later changes to this board don't affect,
+     * so other threads can read a consistent position without locking. Snapshotting a
+     * snapshot returns it unchanged.
+     *
+     * @return a board that throws UnsupportedOperationException on any change
+     */
+    public ChessBoard snapshot() {
+        return readOnly ? this : new ChessBoard(this, true);
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
     }
 
     /**
@@ -22,7 +82,7 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        squares[position.getRow() - 1][position.getColumn() - 1] = piece;
+        setPiece(Bitboards.square(position.getRow(), position.getColumn()), piece);
     }
     /**
      * Gets a chess piece on the chessboard
@@ -32,7 +92,141 @@ public class ChessBoard {
      * position
      */
     public ChessPiece getPiece(ChessPosition position) {
-        return squares[position.getRow() - 1][position.getColumn() - 1];
+        return squares[Bitboards.square(position.getRow(), position.getColumn())];
+    }
+
+    /**
+     * Places a piece on a square index, keeping the bitboards in sync
+     *
+     * @param square square index, see {@link Bitboards#square(int, int)}
+     * @param piece  the piece to place, or null to empty the square
+     */
+    void setPiece(int square, ChessPiece piece) {
+        checkWritable();
+        ChessPiece old = squares[square];
+        if (old != null) {
+            int kind = Bitboards.kind(old);
+            bitboards.remove(square, kind);
+            zobristKey ^= Zobrist.PIECES[kind][square];
+            material[Bitboards.team(kind)] -= MATERIAL_VALUES[kind];
+        }
+        squares[square] = null;
+        if (piece != null) {
+            int kind = Bitboards.kind(piece);
+            // store the shared instance, so a board only ever references the 12 flyweights
+            squares[square] = ChessPiece.of(kind);
+            bitboards.add(square, kind);
+            zobristKey ^= Zobrist.PIECES[kind][square];
+            material[Bitboards.team(kind)] += MATERIAL_VALUES[kind];
+        }
+    }
+
+    ChessPiece pieceAt(int square) {
+        return squares[square];
+    }
+
+    /**
+     * Gets the value of a team's pieces, kept as pieces are added and removed so it
+     * never needs a scan of the board
+     *
+     * @param color the team to total
+     * @return material in centipawns: pawn 100, knight and bishop 300, rook 500,
+     * queen 900, king not counted
+     */
+    public int getMaterial(ChessGame.TeamColor color) {
+        return material[color.ordinal()];
+    }
+
+    /**
+     * Finds a team's king from its bitboard, which addPiece keeps current
+     *
+     * @return square index of the king, or {@link #NO_SQUARE} if the team has no king
+     */
+    int kingSquare(ChessGame.TeamColor color) {
+        return Long.numberOfTrailingZeros(bitboards.pieces(color, ChessPiece.PieceType.KING));
+    }
+
+    /**
+     * @return bitboard of every square holding one of the team's pieces
+     */
+    long teamSquares(ChessGame.TeamColor color) {
+        return bitboards.team(color);
+    }
+
+    /**
+     * Determines if any piece of the attacking team could capture on square. Rather than
+     * generating the attackers' moves, this probes outward from the square itself: a knight
+     * jump, king step, pawn diagonal or slider ray that lands on a matching enemy piece.
+     *
+     * @param square    square index being tested
+     * @param attacker  the team that may be attacking
+     * @return true if square is attacked by attacker
+     */
+    boolean isAttacked(int square, ChessGame.TeamColor attacker) {
+        return isAttacked(square, attacker, bitboards.occupied);
+    }
+
+    /**
+     * Same as {@link #isAttacked(int, ChessGame.TeamColor)}, but sliders see the given
+     * occupancy instead of the board's. Legal king moves are tested with the king itself
+     * removed, so it can't hide behind its own square from a slider checking it.
+     *
+     * @param occupied occupancy the slider rays are blocked by
+     */
+    boolean isAttacked(int square, ChessGame.TeamColor attacker, long occupied) {
+        long[] pieces = bitboards.pieces;
+        int base = Bitboards.kind(attacker, ChessPiece.PieceType.KING);
+        // a pawn attacks square exactly when a pawn of the other team on square would attack it back
+        if ((AttackTables.PAWN[1 - attacker.ordinal()][square] & pieces[base + ChessPiece.PieceType.PAWN.ordinal()]) != 0) {
+            return true;
+        }
+        if ((AttackTables.KNIGHT[square] & pieces[base + ChessPiece.PieceType.KNIGHT.ordinal()]) != 0) {
+            return true;
+        }
+        if ((AttackTables.KING[square] & pieces[base + ChessPiece.PieceType.KING.ordinal()]) != 0) {
+            return true;
+        }
+        long queens = pieces[base + ChessPiece.PieceType.QUEEN.ordinal()];
+        long diagonals = pieces[base + ChessPiece.PieceType.BISHOP.ordinal()] | queens;
+        if (diagonals != 0 && (AttackTables.bishopAttacks(square, occupied) & diagonals) != 0) {
+            return true;
+        }
+        long lines = pieces[base + ChessPiece.PieceType.ROOK.ordinal()] | queens;
+        return lines != 0 && (AttackTables.rookAttacks(square, occupied) & lines) != 0;
+    }
+
+    /**
+     * @return bitboard of every piece of the attacking team that could capture on square
+     */
+    long attackers(int square, ChessGame.TeamColor attacker) {
+        return attackers(square, attacker, bitboards.occupied);
+    }
+
+    /**
+     * Same as {@link #attackers(int, ChessGame.TeamColor)}, with sliders blocked by the given occupancy
+     */
+    long attackers(int square, ChessGame.TeamColor attacker, long occupied) {
+        long[] pieces = bitboards.pieces;
+        int base = Bitboards.kind(attacker, ChessPiece.PieceType.KING);
+        long queens = pieces[base + ChessPiece.PieceType.QUEEN.ordinal()];
+        return (AttackTables.PAWN[1 - attacker.ordinal()][square] & pieces[base + ChessPiece.PieceType.PAWN.ordinal()])
+                | (AttackTables.KNIGHT[square] & pieces[base + ChessPiece.PieceType.KNIGHT.ordinal()])
+                | (AttackTables.KING[square] & pieces[base + ChessPiece.PieceType.KING.ordinal()])
+                | (AttackTables.bishopAttacks(square, occupied)
+                        & (pieces[base + ChessPiece.PieceType.BISHOP.ordinal()] | queens))
+                | (AttackTables.rookAttacks(square, occupied)
+                        & (pieces[base + ChessPiece.PieceType.ROOK.ordinal()] | queens));
+    }
+
+    /**
+     * @return Zobrist key covering only piece placement, see {@link ChessGame#positionKey()}
+     */
+    long zobristKey() {
+        return zobristKey;
+    }
+
+    Bitboards bitboards() {
+        return bitboards;
     }
 
     /**
@@ -48,11 +242,36 @@ public class ChessBoard {
      * Clears all pieces and empties the board
      */
     public void clearBoard() {
-        for (int row = 0; row <= 7; row++) {
-            for (int col = 0; col <= 7; col++) {
-                squares[row][col] = null;
-            }
-        }
+        checkWritable();
+        Arrays.fill(squares, null);
+        bitboards.clear();
+        zobristKey = 0L;
+        material[0] = 0;
+        material[1] = 0;
+    }
+
+    /**
+     * Builds a board from the piece placement field of a FEN string, rank 8 first, e.g.
+     * {@code rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR}. Anything after the placement
+     * field is ignored, so a whole FEN string works too.
+     *
+     * @param fen FEN placement field
+     * @return a board holding the described pieces
+     * @throws IllegalArgumentException if the placement is malformed
+     */
+    public static ChessBoard fromFen(String fen) {
+        ChessBoard board = new ChessBoard();
+        Fen.readPlacement(board, fen);
+        return board;
+    }
+
+    /**
+     * @return the FEN piece placement field for this board
+     */
+    public String toFen() {
+        StringBuilder fen = new StringBuilder(72);
+        Fen.writePlacement(this, fen);
+        return fen.toString();
     }
 
     public void setStartingPosition() {
@@ -69,13 +288,19 @@ public class ChessBoard {
 
         // White Pieces
         for (int col = 1; col <= 8; col++) {
-            addPiece(new ChessPosition(1, col), new ChessPiece(ChessGame.TeamColor.WHITE, backRank[col - 1]));
-            addPiece(new ChessPosition(2, col), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+            addPiece(ChessPosition.of(1, col), ChessPiece.of(ChessGame.TeamColor.WHITE, backRank[col - 1]));
+            addPiece(ChessPosition.of(2, col), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
         }
         // Black Pieces
         for (int col = 1; col <= 8; col++) {
-            addPiece(new ChessPosition(8, col), new ChessPiece(ChessGame.TeamColor.BLACK, backRank[col - 1]));
-            addPiece(new ChessPosition(7, col), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+            addPiece(ChessPosition.of(8, col), ChessPiece.of(ChessGame.TeamColor.BLACK, backRank[col - 1]));
+            addPiece(ChessPosition.of(7, col), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+        }
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("Board snapshots are read-only");
         }
     }
 
@@ -85,12 +310,42 @@ public class ChessBoard {
             return false;
         }
         ChessBoard that = (ChessBoard) o;
-        return Objects.deepEquals(squares, that.squares);
+        return zobristKey == that.zobristKey && bitboards.equals(that.bitboards);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(squares);
+        return Long.hashCode(zobristKey);
     }
-}
 
+    /**
+     * Writes a board as its square array and reads it back through setPiece, which
+     * rebuilds everything derived from the pieces
+     */
+    static final class Json implements JsonSerializer<ChessBoard>, JsonDeserializer<ChessBoard> {
+        @Override
+        public JsonElement serialize(ChessBoard board, Type type, JsonSerializationContext context) {
+            JsonObject json = new JsonObject();
+            json.add("squares", context.serialize(board.squares));
+            return json;
+        }
+
+        @Override
+        public ChessBoard deserialize(JsonElement json, Type type, JsonDeserializationContext context) {
+            JsonElement squaresJson = json.isJsonObject() ? json.getAsJsonObject().get("squares") : null;
+            ChessPiece[] squares = squaresJson == null ? null : context.deserialize(squaresJson, ChessPiece[].class);
+            if (squares == null || squares.length != 64) {
+                throw new JsonParseException("Board needs 64 squares");
+            }
+            ChessBoard board = new ChessBoard();
+            for (int square = 0; square < 64; square++) {
+                ChessPiece piece = squares[square];
+                if (piece != null && (piece.getTeamColor() == null || piece.getPieceType() == null)) {
+                    throw new JsonParseException("Malformed piece on square " + square);
+                }
+                board.setPiece(square, piece);
+            }
+            return board;
+        }
+    }
+}
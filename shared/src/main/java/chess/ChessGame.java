@@ -1,6 +1,6 @@
 package chess;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Objects;
 
@@ -13,12 +13,129 @@ import java.util.Objects;
 public class ChessGame {
     private ChessBoard board;
     private TeamColor teamTurn;
-    private ChessMove lastMove;
+    // castling rights, en passant file and move counters
+    private PositionState state;
+    // moves made through makeMove(ChessMove), created when the first one is made
+    private MoveHistory history;
+
+    // castling rights that survive a move touching each square: moving a king or rook,
+    // or capturing a rook, on its starting square clears the matching rights
+    private static final int[] CASTLING_MASK = new int[64];
+
+    private static final int MINOR_PIECE_VALUE = 300;
+    // b1, d1, ..., a2, c2, ...: the squares where column plus row is odd
+    private static final long LIGHT_SQUARES = 0x55AA55AA55AA55AAL;
+
+    static {
+        Arrays.fill(CASTLING_MASK, PositionState.ALL_CASTLING);
+        CASTLING_MASK[Bitboards.square(1, 1)] &= ~PositionState.WHITE_QUEENSIDE;
+        CASTLING_MASK[Bitboards.square(1, 8)] &= ~PositionState.WHITE_KINGSIDE;
+        CASTLING_MASK[Bitboards.square(1, 5)] &= ~(PositionState.WHITE_KINGSIDE | PositionState.WHITE_QUEENSIDE);
+        CASTLING_MASK[Bitboards.square(8, 1)] &= ~PositionState.BLACK_QUEENSIDE;
+        CASTLING_MASK[Bitboards.square(8, 8)] &= ~PositionState.BLACK_KINGSIDE;
+        CASTLING_MASK[Bitboards.square(8, 5)] &= ~(PositionState.BLACK_KINGSIDE | PositionState.BLACK_QUEENSIDE);
+    }
+
+    // undo records for makeMove(int), see pushUndo for the layout; captured pieces are kept
+    // alongside. Created by the first move made with makeMove(int).
+    private transient long[] undoStack;
+    private transient ChessPiece[] capturedStack;
+    private transient int undoSize;
+
+    // move generation buffers, created by the first move generated; never part of the game's state
+    private transient MoveGen moveGen;
+
+    // positionKey() of each position since the history's start, oldest first, built from
+    // the history the first time a draw is looked for. Moves made with makeMove(ChessMove)
+    // or playMove append to it; lookahead with makeMove(int) leaves it alone. Entries are
+    // never overwritten, so copies and snapshots share the array and read only their own
+    // first positionCount keys while this game appends past them.
+    private transient long[] positionKeys;
+    private transient int positionCount;
+    // true while positionKeys belongs to the game this one was copied from
+    private transient boolean positionKeysShared;
+
+    /**
+     * Scratch space for one round of move generation: the candidate and legal move
+     * buffers, and what {@link #analyzeChecks} found about the king of the team being
+     * generated for. That is the enemy pieces giving check, the squares a non-king move
+     * has to land on to answer the check, and the team's pieces pinned to the king.
+     */
+    private static final class MoveGen {
+        final MoveList candidates = new MoveList(32);
+        final MoveList legal = new MoveList(32);
+        int kingSquare;
+        long checkers;
+        long evasionMask;
+        long pinned;
+    }
 
     public ChessGame() {
         this.board = new ChessBoard();
         this.board.resetBoard();
         this.teamTurn = TeamColor.WHITE;
+        this.state = new PositionState();
+    }
+
+    /**
+     * Creates an independent copy of a game's current position. The copy starts with the
+     * same {@link MoveHistory} and repetition counts, shared until either game moves on;
+     * the undo records used by unmakeMove aren't copied.
+     *
+     * @param other the game to copy
+     */
+    public ChessGame(ChessGame other) {
+        this(other, new ChessBoard(other.board));
+    }
+
+    private ChessGame(ChessGame other, ChessBoard board) {
+        this(board, other.teamTurn, new PositionState(other.state));
+        this.history = other.history == null ? null : new MoveHistory(other.history, other.history.size());
+        if (other.positionKeys != null) {
+            this.positionKeys = other.positionKeys;
+            this.positionCount = other.positionCount;
+            this.positionKeysShared = true;
+        }
+    }
+
+    private ChessGame(ChessBoard board, TeamColor teamTurn, PositionState state) {
+        this.board = board;
+        this.teamTurn = teamTurn;
+        this.state = state;
+    }
+
+    /**
+     * Takes a read-only copy of the current position, which observers can read from any
+     * thread while this game keeps changing. Only the square array and a few words of
+     * state are copied, and snapshotting a snapshot returns it unchanged. Reads on a
+     * snapshot keep their working state to themselves, so any number of threads can
+     * generate moves on the same snapshot at once.
+     *
+     * @return a game whose mutators throw UnsupportedOperationException
+     */
+    public ChessGame snapshot() {
+        if (board.isReadOnly()) {
+            return this;
+        }
+        // build the keys now, so the snapshot shares them instead of rebuilding on every read
+        positionKeys();
+        return new ChessGame(this, board.snapshot());
+    }
+
+    /**
+     * Same as {@link #snapshot()} but keeps only the board, turn and position state, for
+     * {@link MoveHistory} to store without holding on to the history itself
+     */
+    ChessGame positionSnapshot() {
+        return new ChessGame(board.snapshot(), teamTurn, new PositionState(state));
+    }
+
+    /**
+     * @return a writable copy of the position with no history or repetition counts, for
+     * playing moves out to look at them
+     */
+    ChessGame positionCopy() {
+        return new ChessGame(new ChessBoard(board), teamTurn, new PositionState(state));
     }
 
     /**
@@ -34,7 +151,66 @@ public class ChessGame {
      * @param team the team whose turn it is
      */
     public void setTeamTurn(TeamColor team) {
+        checkWritable();
         teamTurn = team;
+        history = null;
+        positionKeys = null;
+        clearUndo();
+    }
+
+    /**
+     * @return castling rights, en passant file and move counters for the current position.
+     * The object is live and changes as moves are made.
+     */
+    public PositionState getPositionState() {
+        return state;
+    }
+
+    /**
+     * Replaces the castling rights, en passant file and move counters, keeping the board
+     */
+    void setPositionState(PositionState state) {
+        this.state = state;
+        this.history = null;
+        this.positionKeys = null;
+        clearUndo();
+    }
+
+    /**
+     * Gets the moves made in this game since its position was last set directly with
+     * setBoard, setTeamTurn or FEN, which is where replay starts from
+     *
+     * @return the game's move history
+     */
+    public MoveHistory getMoveHistory() {
+        if (history == null) {
+            history = new MoveHistory(this);
+        }
+        return history;
+    }
+
+    void setMoveHistory(MoveHistory history) {
+        this.history = history;
+        this.positionKeys = null;
+    }
+
+    /**
+     * Builds a game from a FEN string, covering piece placement, side to move, castling
+     * rights, en passant square and the move counters. The counters may be omitted.
+     *
+     * @param fen position in Forsyth-Edwards Notation
+     * @return a new game in that position
+     * @throws IllegalArgumentException if fen is malformed
+     */
+    public static ChessGame fromFen(String fen) {
+        return Fen.readGame(fen);
+    }
+
+    /**
+     * @return the current position in Forsyth-Edwards Notation
+     */
+    public String toFen() {
+        return Fen.writeGame(this);
     }
 
     /**
@@ -45,6 +221,19 @@ public class ChessGame {
         BLACK
     }
 
+    /**
+     * Enum identifying where a game stands for the team whose turn it is
+     */
+    public enum GameStatus {
+        ONGOING,
+        CHECK,
+        CHECKMATE,
+        STALEMATE,
+        DRAW_BY_INSUFFICIENT_MATERIAL,
+        DRAW_BY_REPETITION,
+        DRAW_BY_FIFTY_MOVES
+    }
+
     /**
      * Gets a valid moves for a piece at the given location
      *
@@ -53,55 +242,165 @@ public class ChessGame {
      * startPosition
      */
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
-        ChessPiece piece = board.getPiece(startPosition);
-        Collection<ChessMove> potentialMoves = piece.pieceMoves(board, startPosition);
-        Collection<ChessMove> validMoves = new java.util.ArrayList<>();
-
-        for (ChessMove move : potentialMoves) {
-            // save current board state
-            ChessPiece capturedPiece = board.getPiece(move.getEndPosition());
-            board.addPiece(move.getEndPosition(), piece);
-            board.addPiece(startPosition, null);
-
-            // check if king is safe
-            if (!isInCheck(piece.getTeamColor())) {
-                validMoves.add(move);
+        if (board.getPiece(startPosition) == null) {
+            return null;
+        }
+        MoveGen gen = moveGen();
+        legalMoves(MoveCalculatorUtils.square(startPosition), gen.legal, gen);
+        return gen.legal.toChessMoves();
+    }
+
+    /**
+     * Fills moves with the valid moves for the piece on square, as {@link PackedMove} encodings.
+     * The buffers are reused, so checking a move allocates nothing.
+     *
+     * @param square square index of the piece, which must not be empty
+     * @param moves  buffer to clear and fill
+     */
+    void legalMoves(int square, MoveList moves) {
+        legalMoves(square, moves, moveGen());
+    }
+
+    private void legalMoves(int square, MoveList moves, MoveGen gen) {
+        moves.clear();
+        analyzeChecks(board.pieceAt(square).getTeamColor(), gen);
+        addLegalMoves(square, moves, gen);
+    }
+
+    /**
+     * Fills moves with the valid moves for every piece of a team
+     *
+     * @param teamColor the team to generate moves for
+     * @param moves     buffer to clear and fill
+     */
+    void legalMoves(TeamColor teamColor, MoveList moves) {
+        MoveGen gen = moveGen();
+        moves.clear();
+        analyzeChecks(teamColor, gen);
+        long pieces = board.teamSquares(teamColor);
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            addLegalMoves(square, moves, gen);
+        }
+    }
+
+    /**
+     * A game reuses one set of move generation buffers. A snapshot makes a new set for
+     * every call, since other threads may be generating moves on it at the same time.
+     */
+    private MoveGen moveGen() {
+        if (board.isReadOnly()) {
+            return new MoveGen();
+        }
+        if (moveGen == null) {
+            moveGen = new MoveGen();
+        }
+        return moveGen;
+    }
+
+    /**
+     * Finds the checkers and pinned pieces for a team's king once, so each move can be
+     * tested against a couple of masks instead of being played out.
+     *
+     * @param teamColor the team about to move
+     * @param gen       where to leave the results
+     */
+    private void analyzeChecks(TeamColor teamColor, MoveGen gen) {
+        TeamColor enemyColor = (teamColor == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+        int kingSquare = board.kingSquare(teamColor);
+        gen.kingSquare = kingSquare;
+        gen.checkers = 0L;
+        gen.evasionMask = -1L;
+        gen.pinned = 0L;
+        if (kingSquare == ChessBoard.NO_SQUARE) {
+            return;
+        }
+
+        long checkers = board.attackers(kingSquare, enemyColor);
+        gen.checkers = checkers;
+        if (checkers != 0) {
+            int checker = Long.numberOfTrailingZeros(checkers);
+            // with two checkers only the king can move; with one, capture it or block the ray
+            gen.evasionMask = (checkers & (checkers - 1)) != 0 ? 0L
+                    : AttackTables.BETWEEN[kingSquare][checker] | (1L << checker);
+        }
+
+        // enemy sliders aimed at the king through nothing but pieces of ours
+        Bitboards bitboards = board.bitboards();
+        long enemies = bitboards.team(enemyColor);
+        long queens = bitboards.pieces(enemyColor, ChessPiece.PieceType.QUEEN);
+        long snipers = (AttackTables.rookAttacks(kingSquare, enemies)
+                & (bitboards.pieces(enemyColor, ChessPiece.PieceType.ROOK) | queens))
+                | (AttackTables.bishopAttacks(kingSquare, enemies)
+                & (bitboards.pieces(enemyColor, ChessPiece.PieceType.BISHOP) | queens));
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = AttackTables.BETWEEN[kingSquare][sniper] & bitboards.occupied;
+            if (blockers != 0 && (blockers & (blockers - 1)) == 0) {
+                gen.pinned |= blockers & bitboards.team(teamColor);
             }
+        }
+    }
 
-            // undo the move
-            board.addPiece(startPosition, piece);
-            board.addPiece(move.getEndPosition(), capturedPiece);
+    /**
+     * Adds the legal moves of the piece on square, using what {@link #analyzeChecks} found.
+     * Only king moves and en passant get their own attack probe; everything else
+     * is legal exactly when it answers any check and keeps a pinned piece on its pin ray.
+     */
+    private void addLegalMoves(int square, MoveList moves, MoveGen gen) {
+        ChessPiece piece = board.pieceAt(square);
+        TeamColor myColor = piece.getTeamColor();
+        MoveList candidateMoves = gen.candidates;
+        candidateMoves.clear();
+        piece.pieceMoves(board, square, candidateMoves);
+
+        if (piece.getPieceType() == ChessPiece.PieceType.KING) {
+            addLegalKingMoves(square, myColor, candidateMoves, moves);
+            return;
         }
 
-        // en passant check
-        TeamColor myColor = board.getPiece(startPosition).getTeamColor();
-        int enPassantRow = (myColor == TeamColor.WHITE) ? 5 : 4;
-        int verticalDirection = (myColor == TeamColor.WHITE) ? 1 : -1;
-        if (piece.getPieceType() == ChessPiece.PieceType.PAWN && startPosition.getRow() == enPassantRow) {
-            // check for en passant to the right
-            if (canEnPassant(board, startPosition, true)) {
-                validMoves.add(new ChessMove(startPosition,
-                        new ChessPosition(startPosition.getRow()+verticalDirection, startPosition.getColumn()+1), null));
+        long allowed = gen.evasionMask;
+        if ((gen.pinned & (1L << square)) != 0) {
+            allowed &= AttackTables.LINE[gen.kingSquare][square];
+        }
+        for (int i = 0; i < candidateMoves.size(); i++) {
+            int move = candidateMoves.get(i);
+            if ((allowed & (1L << PackedMove.to(move))) != 0) {
+                moves.add(move);
             }
-            // check for en passant to the left
-            if (canEnPassant(board, startPosition, false)) {
-                validMoves.add(new ChessMove(startPosition,
-                        new ChessPosition(startPosition.getRow()+verticalDirection, startPosition.getColumn()-1), null));
+        }
+
+        // en passant check, which can uncover a check along the rank through both pawns
+        if (piece.getPieceType() == ChessPiece.PieceType.PAWN && canEnPassant(board, square)) {
+            moves.add(PackedMove.encode(square, state.enPassantSquare(myColor), null, PackedMove.EN_PASSANT));
+        }
+    }
+
+    private void addLegalKingMoves(int square, TeamColor myColor, MoveList candidateMoves, MoveList moves) {
+        TeamColor enemyColor = (myColor == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+        // take the king off the board so it can't shelter a square behind it from a slider
+        long occupied = board.bitboards().occupied & ~(1L << square);
+        for (int i = 0; i < candidateMoves.size(); i++) {
+            int move = candidateMoves.get(i);
+            if (!board.isAttacked(PackedMove.to(move), enemyColor, occupied)) {
+                moves.add(move);
             }
         }
 
         // king castling check, canCastle handles the king being safe logic
-        if (piece.getPieceType() == ChessPiece.PieceType.KING && !piece.hasMoved()) {
+        int homeSquare = Bitboards.square(myColor == TeamColor.WHITE ? 1 : 8, 5);
+        if (square == homeSquare) {
             // kingside castle
-            if (canCastle(board, startPosition, true)) {
-                validMoves.add(new ChessMove(startPosition, new ChessPosition(startPosition.getRow(), 7), null));
+            if (canCastle(board, square, true)) {
+                moves.add(PackedMove.encode(square, square + 2, null, PackedMove.CASTLE));
             }
             // queenside castle
-            if (canCastle(board, startPosition, false)) {
-                validMoves.add(new ChessMove(startPosition, new ChessPosition(startPosition.getRow(), 3), null));
+            if (canCastle(board, square, false)) {
+                moves.add(PackedMove.encode(square, square - 2, null, PackedMove.CASTLE));
             }
         }
-        return validMoves;
     }
     /**
      * Makes a move in a chess game
@@ -110,189 +409,238 @@ public class ChessGame {
      * @throws InvalidMoveException if move is invalid
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
+        checkWritable();
         // checks if there's a piece in starting position
         ChessPiece movingPiece = board.getPiece(move.getStartPosition());
         if (movingPiece == null || movingPiece.getTeamColor() != teamTurn) {
             throw new InvalidMoveException("No piece of your team at start position");
         }
 
-        // Checks if move is in valid moves
-        Collection<ChessMove> moves = validMoves(move.getStartPosition());
-        if (moves == null || !moves.contains(move)) {
+        // Checks if move is in valid moves, picking up its en passant / castle flags
+        MoveGen gen = moveGen();
+        legalMoves(MoveCalculatorUtils.square(move.getStartPosition()), gen.legal, gen);
+        int packed = gen.legal.find(PackedMove.encode(move));
+        if (packed == -1) {
             throw new InvalidMoveException("Move not valid");
         }
 
-        ChessPiece capturedPiece = board.getPiece(move.getEndPosition());
-        ChessPiece.PieceType promotionType = move.getPromotionPiece();
+        if (history == null) {
+            history = new MoveHistory(this);
+        }
+        positionKeys();
+        // nothing takes back a checked move, so don't keep records for it, or for the
+        // moves before it that it would now be taken back past
+        clearUndo();
+        playMove(packed);
+        history.record(packed, this);
+    }
 
-        // en passant special case
-        boolean isEnPassant = false;
-        if (movingPiece.getPieceType() == ChessPiece.PieceType.PAWN
-                && capturedPiece == null
-                && move.getStartPosition().getColumn() != move.getEndPosition().getColumn()) {
-            // diagonal move without a piece on the target square → en passant
-            isEnPassant = true;
-            int direction = (teamTurn == TeamColor.WHITE) ? -1 : 1;
-            ChessPosition capturedPawnPos = new ChessPosition(
-                    move.getEndPosition().getRow() + direction,
-                    move.getEndPosition().getColumn()
-            );
-            capturedPiece = board.getPiece(capturedPawnPos);
-            board.addPiece(capturedPawnPos, null); // remove captured pawn
+    /**
+     * Applies a move without checking that it's legal and records how to take it back.
+     * Handles captures, en passant, promotion and the castling rook, and updates the
+     * turn, castling rights, en passant square and halfmove clock.
+     *
+     * @param move a {@link PackedMove} produced by move generation for this position
+     */
+    void makeMove(int move) {
+        makeMove(move, true);
+    }
+
+    /**
+     * Same as {@link #makeMove(int)} without keeping an undo record, for replaying moves
+     * that will never be taken back
+     */
+    void playMove(int move) {
+        makeMove(move, false);
+        if (positionKeys != null) {
+            addPositionKey();
+        }
+    }
+
+    private void makeMove(int move, boolean undoable) {
+        checkWritable();
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        ChessPiece piece = board.pieceAt(from);
+        TeamColor color = piece.getTeamColor();
+
+        int captureSquare = to;
+        if (PackedMove.hasFlag(move, PackedMove.EN_PASSANT)) {
+            // the captured pawn sits beside the start square, behind the end square
+            captureSquare = (color == TeamColor.WHITE) ? to - 8 : to + 8;
+        }
+        ChessPiece captured = board.pieceAt(captureSquare);
+        if (undoable) {
+            pushUndo(move, captured);
         }
 
         // execute move (promotion logic here)
-        if (promotionType == null) {
-            board.addPiece(move.getEndPosition(), movingPiece);
-        } else {
-            board.addPiece(move.getEndPosition(), new ChessPiece(teamTurn, promotionType));
-        }
-        board.addPiece(move.getStartPosition(), null);
-
-        // check if move leaves king in check
-        if (isInCheck(teamTurn)) {
-            // undo en passant if needed
-            if (isEnPassant) {
-                int direction = (teamTurn == TeamColor.WHITE) ? -1 : 1;
-                ChessPosition capturedPawnPos = new ChessPosition(
-                        move.getEndPosition().getRow() + direction,
-                        move.getEndPosition().getColumn()
-                );
-                board.addPiece(capturedPawnPos, capturedPiece);
-            }
+        board.setPiece(captureSquare, null);
+        board.setPiece(from, null);
+        ChessPiece.PieceType promotionType = PackedMove.promotion(move);
+        board.setPiece(to, promotionType == null ? piece : ChessPiece.of(color, promotionType));
 
-            // undo main move
-            board.addPiece(move.getStartPosition(), movingPiece);
-            board.addPiece(move.getEndPosition(), capturedPiece);
-            throw new InvalidMoveException("Move leaves king in check");
-        }
         // handle castling rook move here
-        if (movingPiece.getPieceType() == ChessPiece.PieceType.KING) {
-            int startCol = move.getStartPosition().getColumn();
-            int endCol = move.getEndPosition().getColumn();
-            int row = move.getStartPosition().getRow();
-
-            if (startCol == 5 && endCol == 7) { // kingside
-                ChessPosition rookStart = new ChessPosition(row, 8);
-                ChessPosition rookEnd = new ChessPosition(row, 6);
-                ChessPiece rook = board.getPiece(rookStart);
-                board.addPiece(rookEnd, rook);
-                board.addPiece(rookStart, null);
-                rook.setMoved();
-            } else if (startCol == 5 && endCol == 3) { // queenside
-                ChessPosition rookStart = new ChessPosition(row, 1);
-                ChessPosition rookEnd = new ChessPosition(row, 4);
-                ChessPiece rook = board.getPiece(rookStart);
-                board.addPiece(rookEnd, rook);
-                board.addPiece(rookStart, null);
-                rook.setMoved();
-            }
+        if (PackedMove.hasFlag(move, PackedMove.CASTLE)) {
+            boolean kingside = to > from;
+            int rookFrom = kingside ? from + 3 : from - 4;
+            int rookTo = kingside ? from + 1 : from - 1;
+            ChessPiece rook = board.pieceAt(rookFrom);
+            board.setPiece(rookFrom, null);
+            board.setPiece(rookTo, rook);
         }
 
-        // set last move for checking en passant
-        lastMove = move;
-        // mark piece as moved
-        board.getPiece(move.getEndPosition()).setMoved();
+        state.castlingRights &= CASTLING_MASK[from] & CASTLING_MASK[to];
+        state.enPassantFile = PackedMove.hasFlag(move, PackedMove.DOUBLE_PUSH) ? from & 7 : PositionState.NO_EN_PASSANT;
+        boolean irreversible = captured != null || piece.getPieceType() == ChessPiece.PieceType.PAWN;
+        state.halfmoveClock = irreversible ? 0 : state.halfmoveClock + 1;
+        if (color == TeamColor.BLACK) {
+            state.fullmoveNumber++;
+        }
         // switch turn
-        teamTurn = (teamTurn == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+        teamTurn = (color == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
     }
+
     /**
-     * Determines if the given team is in check
-     *
-     * @param teamColor which team to check for check
-     * @return True if the specified team is in check
+     * Takes back the last move applied with {@link #makeMove(int)}, restoring the board
+     * and every piece of game state the move changed. Moves made with
+     * {@link #makeMove(ChessMove)} or {@link #playMove(int)} can't be taken back.
      */
-    public boolean isInCheck(TeamColor teamColor) {
-        // get opposite of teamColor
-        TeamColor enemyColor = (teamColor == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+    void unmakeMove() {
+        if (undoSize == 0) {
+            throw new IllegalStateException("No move to unmake");
+        }
+        undoSize--;
+        long record = undoStack[undoSize];
+        ChessPiece captured = capturedStack[undoSize];
+        capturedStack[undoSize] = null;
+
+        int move = (int) (record & 0x3FFFF);
+        state.castlingRights = (int) ((record >>> 18) & 0xF);
+        state.enPassantFile = (int) ((record >>> 22) & 0xF) - 1;
+        state.halfmoveClock = (int) ((record >>> 29) & 0xFFFF);
+        teamTurn = ((record >>> 45) & 1) == 0 ? TeamColor.WHITE : TeamColor.BLACK;
+        if (teamTurn == TeamColor.BLACK) {
+            state.fullmoveNumber--;
+        }
 
-        // find teamColor king
-        ChessPosition kingPos = findKingPosition(teamColor);
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        ChessPiece piece = board.pieceAt(to);
+        TeamColor color = piece.getTeamColor();
+        if (PackedMove.promotion(move) != null) {
+            piece = ChessPiece.of(color, ChessPiece.PieceType.PAWN);
+        }
+        board.setPiece(to, null);
+        board.setPiece(from, piece);
 
-        // check if king is attacked
-        return isPositionAttacked(enemyColor, kingPos);
+        if (PackedMove.hasFlag(move, PackedMove.EN_PASSANT)) {
+            board.setPiece((color == TeamColor.WHITE) ? to - 8 : to + 8, captured);
+        } else {
+            board.setPiece(to, captured);
+        }
+
+        if (PackedMove.hasFlag(move, PackedMove.CASTLE)) {
+            boolean kingside = to > from;
+            int rookFrom = kingside ? from + 3 : from - 4;
+            int rookTo = kingside ? from + 1 : from - 1;
+            board.setPiece(rookFrom, board.pieceAt(rookTo));
+            board.setPiece(rookTo, null);
+        }
     }
+
     /**
-     *
-     * @param teamColor team of king we're looking for
-     * @return position of king, null if we can't find him, that shouldn't happen
-     */
-    private ChessPosition findKingPosition(TeamColor teamColor) {
-        Collection<ChessPosition> positions = getAllBoardPositions();
-        for (ChessPosition pos : positions) {
-            ChessPiece piece = board.getPiece(pos);
-            // check if there's a piece in each spot. If there is, check if it's a king.
-            // If it is, check if it's teamColor. If all are true, that's our king
-            if (piece != null && piece.getPieceType() == ChessPiece.PieceType.KING && piece.getTeamColor() == teamColor) {
-                return pos;
-            }
+     * Saves the state a move overwrites, packed into one long:
+     * bits 0-17 the move, 18-21 castling rights, 22-25 en passant file + 1,
+     * 29-44 halfmove clock and bit 45 the team whose turn it was.
+     */
+    private void pushUndo(int move, ChessPiece captured) {
+        if (undoStack == null) {
+            undoStack = new long[64];
+            capturedStack = new ChessPiece[64];
+        } else if (undoSize == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, undoSize * 2);
+            capturedStack = Arrays.copyOf(capturedStack, undoSize * 2);
+        }
+        undoStack[undoSize] = (move & 0x3FFFFL)
+                | ((long) state.castlingRights << 18)
+                | ((long) (state.enPassantFile + 1) << 22)
+                | ((long) (state.halfmoveClock & 0xFFFF) << 29)
+                | ((long) teamTurn.ordinal() << 45);
+        capturedStack[undoSize] = captured;
+        undoSize++;
+    }
+
+    private void clearUndo() {
+        if (undoSize != 0) {
+            Arrays.fill(capturedStack, 0, undoSize, null);
+            undoSize = 0;
         }
-        // THIS SHOULD NEVER HAPPEN
-        return null;
     }
     /**
+     * Determines if the given team is in check
      *
-     * @param attackingColor the enemy team
-     * @param attackedPosition the position of the friendly king
-     * @return true if friendly king is under attack, otherwise false
+     * @param teamColor which team to check for check
+     * @return True if the specified team is in check
      */
-    private boolean isPositionAttacked(TeamColor attackingColor, ChessPosition attackedPosition) {
-        Collection<ChessPosition> positions = getAllBoardPositions();
-        for (ChessPosition pos : positions) {
-            if (isEnemyAttacking(attackingColor, pos, attackedPosition)) {
-                return true;
-            }
+    public boolean isInCheck(TeamColor teamColor) {
+        // get opposite of teamColor
+        TeamColor enemyColor = (teamColor == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+
+        // the board tracks each king on its bitboard, so this is a lookup rather than a scan
+        int kingSquare = board.kingSquare(teamColor);
+        if (kingSquare == ChessBoard.NO_SQUARE) {
+            return false;
         }
-        return false;
-    }
 
+        // check if king is attacked
+        return isPositionAttacked(enemyColor, kingSquare);
+    }
     /**
      *
      * @param attackingColor the enemy team
-     * @param pos the pos of the piece potentially attacking king
-     * @param target the position of the friendly king
-     * @return true if friendly king is under attack by piece in pos, otherwise false
+     * @param attackedSquare square index of the position that may be attacked
+     * @return true if any piece of attackingColor could capture on attackedSquare, otherwise false
      */
-    private boolean isEnemyAttacking(TeamColor attackingColor, ChessPosition pos, ChessPosition target) {
-        ChessPiece piece = board.getPiece(pos);
-        if (piece == null || piece.getTeamColor() != attackingColor) {
-            return false;
-        }
-        for (ChessMove move : piece.pieceMoves(board, pos)) {
-            if (move.getEndPosition().equals(target)) {
-                return true;
-            }
-        }
-        return false;
+    private boolean isPositionAttacked(TeamColor attackingColor, int attackedSquare) {
+        return board.isAttacked(attackedSquare, attackingColor);
     }
     /**
      *
      * @param board chess board
-     * @param  kingPos kings starting position
+     * @param kingSquare square of the king, on its starting square
      * @param kingside boolean that says which direction king is trying to castle
      * @return boolean if the king can castle to that side
      */
-    private boolean canCastle(ChessBoard board, ChessPosition kingPos, boolean kingside) {
-        int row = kingPos.getRow();
-        int rookCol = kingside ? 8 : 1;
+    private boolean canCastle(ChessBoard board, int kingSquare, boolean kingside) {
+        ChessPiece king = board.pieceAt(kingSquare);
+        TeamColor myColor = king.getTeamColor();
+        TeamColor enemyColor = (myColor == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
         int step = kingside ? 1 : -1;
-        TeamColor enemyColor = (board.getPiece(kingPos).getTeamColor() == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+        int rookSquare = kingside ? kingSquare + 3 : kingSquare - 4;
 
-        // check that the rook is in original place and hasn't moved
-        ChessPiece rook = board.getPiece(new ChessPosition(row, rookCol));
-        if (rook == null || rook.getPieceType() != ChessPiece.PieceType.ROOK || rook.hasMoved()) {
+        // check that neither the king nor that rook has moved
+        int right = (myColor == TeamColor.WHITE)
+                ? (kingside ? PositionState.WHITE_KINGSIDE : PositionState.WHITE_QUEENSIDE)
+                : (kingside ? PositionState.BLACK_KINGSIDE : PositionState.BLACK_QUEENSIDE);
+        if (!state.canCastle(right)) {
+            return false;
+        }
+        // check that the rook is still in its original place
+        ChessPiece rook = board.pieceAt(rookSquare);
+        if (rook == null || rook.getPieceType() != ChessPiece.PieceType.ROOK || rook.getTeamColor() != myColor) {
             return false;
         }
 
         // check that the squares between the rook and king are empty
-        for (int col = kingPos.getColumn() + step; col != rookCol; col += step) {
-            if (board.getPiece(new ChessPosition(row, col)) != null) {
+        for (int square = kingSquare + step; square != rookSquare; square += step) {
+            if (board.pieceAt(square) != null) {
                 return false;
             }
         }
         // check that none of the positions that the king has to move into or end on would be under check
-        for (int col = kingPos.getColumn(); col != kingPos.getColumn() + 3 * step; col += step) {
-            if (isPositionAttacked(enemyColor, new ChessPosition(row, col))) {
+        for (int square = kingSquare; square != kingSquare + 3 * step; square += step) {
+            if (isPositionAttacked(enemyColor, square)) {
                 return false;
             }
         }
@@ -301,83 +649,93 @@ public class ChessGame {
     /**
      *
      * @param board our chess board
-     * @param pawnPos starting position of our capturing pawn
-     * @param rightSide if the en passant is to the right or not
-     * @return if en passant is a valid move here
-     */
-    private boolean canEnPassant(ChessBoard board, ChessPosition pawnPos, boolean rightSide) {
-        // Use lastMove to determine en passant eligibility and simulate using actual pieces (restore afterward).
-        int row = pawnPos.getRow();
-        int col = pawnPos.getColumn();
-
-        // ensure adjacent file exists
-        int adjCol = rightSide ? col + 1 : col - 1;
-        if (adjCol < 1 || adjCol > 8) {
+     * @param pawnSquare square of our capturing pawn
+     * @return if en passant is a valid move for this pawn
+     */
+    private boolean canEnPassant(ChessBoard board, int pawnSquare) {
+        // an enemy pawn must have just skipped over a square this pawn attacks
+        ChessPiece myPawn = board.pieceAt(pawnSquare);
+        TeamColor myColor = myPawn.getTeamColor();
+        int enPassantSquare = state.enPassantSquare(myColor);
+        if (enPassantSquare == ChessBoard.NO_SQUARE) {
             return false;
         }
-
-        ChessPosition adjPos = new ChessPosition(row, adjCol);
-        ChessPiece adjPiece = board.getPiece(adjPos);
-        ChessPiece myPawn = board.getPiece(pawnPos);
-
-        // must have a pawn of the opponent adjacent
-        if (myPawn == null || adjPiece == null) {
+        int team = myColor.ordinal();
+        if ((AttackTables.PAWN[team][pawnSquare] & (1L << enPassantSquare)) == 0) {
             return false;
         }
-        if (adjPiece.getPieceType() != ChessPiece.PieceType.PAWN) {
+        int capturedSquare = (myColor == TeamColor.WHITE) ? enPassantSquare - 8 : enPassantSquare + 8;
+        ChessPiece adjPiece = board.pieceAt(capturedSquare);
+        if (adjPiece == null || adjPiece.getPieceType() != ChessPiece.PieceType.PAWN
+                || adjPiece.getTeamColor() == myColor) {
             return false;
         }
-        if (adjPiece.getTeamColor() == myPawn.getTeamColor()) {
-            return false;
+
+        // the capture empties two squares and fills one, so check our king against the
+        // occupancy after the move; the captured pawn no longer attacks anything
+        int kingSquare = board.kingSquare(myColor);
+        if (kingSquare == ChessBoard.NO_SQUARE) {
+            return true;
         }
-        // lastMove must exist and must be the pawn that moved to the adjacent square by a 2-square jump
-        if (lastMove == null) {
-            return false;
+        TeamColor enemyColor = (myColor == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+        long capturedBit = 1L << capturedSquare;
+        long occupied = (board.bitboards().occupied & ~(1L << pawnSquare) & ~capturedBit) | (1L << enPassantSquare);
+        return (board.attackers(kingSquare, enemyColor, occupied) & ~capturedBit) == 0;
+    }
+    /**
+     * Gets the state of the game for the team whose turn it is, combining the check,
+     * checkmate, stalemate and draw tests into a single pass
+     *
+     * @return the game status for the team to move
+     */
+    public GameStatus getGameStatus() {
+        return getGameStatus(teamTurn);
+    }
+
+    /**
+     * Gets the state of the game for the given team. The legal move search stops at the
+     * first move found, so a position with moves available is usually settled after
+     * looking at one or two pieces.
+     *
+     * <p>
+     * A game with moves left is drawn when neither side has the material to checkmate,
+     * once its position has occurred three times, or once fifty moves have passed without
+     * a capture or pawn move. These end the game outright rather than waiting for a
+     * claim, and checkmate on the fiftieth move still stands.
+     *
+     * @param teamColor which team to get the status for
+     * @return CHECKMATE or STALEMATE if the team has no valid moves, a DRAW status if the
+     * game is drawn, otherwise CHECK or ONGOING
+     */
+    public GameStatus getGameStatus(TeamColor teamColor) {
+        GameStatus status = getMoveStatus(teamColor);
+        if (status == GameStatus.CHECKMATE || status == GameStatus.STALEMATE) {
+            return status;
         }
-        if (!lastMove.getEndPosition().equals(adjPos)) {
-            return false;
+        if (isInsufficientMaterial()) {
+            return GameStatus.DRAW_BY_INSUFFICIENT_MATERIAL;
         }
-        // the piece that moved must have been a pawn and must have moved two squares
-        int startRow = lastMove.getStartPosition().getRow();
-        int endRow = lastMove.getEndPosition().getRow();
-        if (Math.abs(endRow - startRow) != 2) {
-            return false;
+        if (isThreefoldRepetition()) {
+            return GameStatus.DRAW_BY_REPETITION;
         }
-
-        // Now simulate en passant capture and ensure it doesn't leave our king in check
-        TeamColor myColor = myPawn.getTeamColor();
-        int verticalDirection = (myColor == TeamColor.WHITE) ? 1 : -1;
-        ChessPosition targetPos = new ChessPosition(row + verticalDirection, adjCol);
-
-        ChessPiece targetOccupant = board.getPiece(targetPos);
-
-        // perform simulation: move pawn to target, remove original and captured pawn
-        board.addPiece(targetPos, myPawn);
-        board.addPiece(pawnPos, null);
-        board.addPiece(adjPos, null);
-
-        boolean leavesKingInCheck = isInCheck(myColor);
-
-        // undo simulation
-        board.addPiece(pawnPos, myPawn);
-        board.addPiece(adjPos, adjPiece);
-        board.addPiece(targetPos, targetOccupant);
-
-        return !leavesKingInCheck;
+        if (isFiftyMoveRule()) {
+            return GameStatus.DRAW_BY_FIFTY_MOVES;
+        }
+        return status;
     }
+
     /**
-     *
-     * @return a list of all the positions on the board
+     * Same as {@link #getGameStatus(TeamColor)} without the draw rules, for looking ahead
+     * with {@link #makeMove(int)}, whose positions don't count towards repetitions
      */
-    private Collection<ChessPosition> getAllBoardPositions() {
-        Collection<ChessPosition> positions = new ArrayList<>();
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                positions.add(new ChessPosition(row, col));
-            }
+    GameStatus getMoveStatus(TeamColor teamColor) {
+        boolean inCheck = isInCheck(teamColor);
+        if (hasLegalMove(teamColor)) {
+            return inCheck ? GameStatus.CHECK : GameStatus.ONGOING;
         }
-        return positions;
+        return inCheck ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
     }
+
     /**
      * Determines if the given team is in checkmate
      *
@@ -385,81 +743,176 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
-        if (!isInCheck(teamColor)) {
-            return false;
-        }
-
-        for (ChessPosition pos : getAllBoardPositions()) {
-            ChessPiece piece = board.getPiece(pos);
-            if (piece != null && piece.getTeamColor() == teamColor) {
-                if (hasEscapingMove(pos, piece, teamColor)) {
-                    return false;
-                }
-            }
-        }
-        return true;
+        return isInCheck(teamColor) && !hasLegalMove(teamColor);
     }
     /**
+     * Determines if the given team is in stalemate, which here is defined as having
+     * no valid moves while not in check.
      *
-     * @param startPos the starting position of the piece attempting to move
-     * @param piece the piece attempting to move
-     * @param teamColor which team is under threat
-     * @return true if the king can escape, false otherwise
-     */
-    private boolean hasEscapingMove(ChessPosition startPos, ChessPiece piece, TeamColor teamColor) {
-        Collection<ChessMove> moves = validMoves(startPos);
-        if (moves == null) {
-            return false;
+     * @param teamColor which team to check for stalemate
+     * @return True if the specified team is in stalemate, otherwise false
+     */
+    public boolean isInStalemate(TeamColor teamColor) {
+        return !isInCheck(teamColor) && !hasLegalMove(teamColor);
+    }
+    /**
+     *
+     * @param teamColor which team to look for a move for
+     * @return true as soon as any piece of the team has a valid move, otherwise false
+     */
+    private boolean hasLegalMove(TeamColor teamColor) {
+        MoveGen gen = moveGen();
+        analyzeChecks(teamColor, gen);
+        long pieces = board.teamSquares(teamColor);
+        // in double check only the king can move, so start with it
+        if ((gen.checkers & (gen.checkers - 1)) != 0) {
+            pieces = 1L << gen.kingSquare;
         }
-
-        for (ChessMove move : moves) {
-            if (simulateMoveDoesEscapeCheck(startPos, piece, move, teamColor)) {
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            gen.legal.clear();
+            addLegalMoves(square, gen.legal, gen);
+            if (gen.legal.size() != 0) {
                 return true;
             }
         }
         return false;
     }
     /**
+     * Only positions since the last capture or pawn move can match, so this looks back at
+     * most halfmoveClock plies, and only at the positions with the same side to move.
+     * Positions reached with {@link #makeMove(int)} aren't counted.
      *
-     * @param startPos the start position of piece attempting to move
-     * @param piece the piece moving
-     * @param move the move it makes
-     * @param teamColor which team to check for check
-     * @return True if the king escapes check with move, otherwise false
+     * @return how many times the current position has occurred since the move history
+     * started, counting this occurrence; positions match on {@link #positionKey()}
      */
-    private boolean simulateMoveDoesEscapeCheck(ChessPosition startPos, ChessPiece piece, ChessMove move, TeamColor teamColor) {
-        ChessPiece captured = board.getPiece(move.getEndPosition());
+    public int repetitionCount() {
+        long[] keys = positionKeys();
+        int count = keys == positionKeys ? positionCount : keys.length;
+        long key = positionKey();
+        int oldest = Math.max(0, count - 1 - state.halfmoveClock);
+        int repetitions = 1;
+        for (int i = count - 3; i >= oldest; i -= 2) {
+            if (keys[i] == key) {
+                repetitions++;
+            }
+        }
+        return repetitions;
+    }
+
+    /**
+     * @return true if the current position has occurred at least three times
+     */
+    public boolean isThreefoldRepetition() {
+        return repetitionCount() >= 3;
+    }
 
-        board.addPiece(move.getEndPosition(), piece);
-        board.addPiece(startPos, null);
+    /**
+     * @return true if fifty moves by each side have been made since the last capture or pawn move
+     */
+    public boolean isFiftyMoveRule() {
+        return state.halfmoveClock >= 100;
+    }
 
-        boolean escapesCheck = !isInCheck(teamColor);
+    /**
+     * Determines if neither team can ever checkmate: king against king, king and one
+     * minor piece against king, or kings with bishops that all stand on squares of one
+     * color. The board's material counts rule out almost every position before any
+     * bitboard is looked at.
+     *
+     * @return true if the position is a dead draw on material
+     */
+    public boolean isInsufficientMaterial() {
+        // anything beyond a single minor piece each, including two or more pawns, can mate
+        if (board.getMaterial(TeamColor.WHITE) > MINOR_PIECE_VALUE || board.getMaterial(TeamColor.BLACK) > MINOR_PIECE_VALUE) {
+            return false;
+        }
+        Bitboards bitboards = board.bitboards();
+        long kings = bitboards.pieces(TeamColor.WHITE, ChessPiece.PieceType.KING)
+                | bitboards.pieces(TeamColor.BLACK, ChessPiece.PieceType.KING);
+        long bishops = bitboards.pieces(TeamColor.WHITE, ChessPiece.PieceType.BISHOP)
+                | bitboards.pieces(TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
+        long others = bitboards.occupied & ~kings;
+        if ((others & (others - 1)) == 0) {
+            // at most one piece besides the kings; a lone pawn can still promote
+            return (others & (bitboards.pieces(TeamColor.WHITE, ChessPiece.PieceType.PAWN)
+                    | bitboards.pieces(TeamColor.BLACK, ChessPiece.PieceType.PAWN))) == 0;
+        }
+        // one piece each: only bishops on the same color leave no way to mate
+        return others == bishops && ((bishops & LIGHT_SQUARES) == 0 || (bishops & ~LIGHT_SQUARES) == 0);
+    }
 
-        board.addPiece(startPos, piece);
-        board.addPiece(move.getEndPosition(), captured);
+    /**
+     * Builds the position keys from the move history if they haven't been yet. Snapshots
+     * share the keys of the game they were taken from; one without keys builds a
+     * throwaway array instead, since other threads may be reading it.
+     */
+    private long[] positionKeys() {
+        if (positionKeys != null) {
+            return positionKeys;
+        }
+        long[] keys = history == null ? new long[]{positionKey()} : history.positionKeys();
+        if (!board.isReadOnly()) {
+            positionKeys = keys;
+            positionCount = keys.length;
+            positionKeysShared = false;
+        }
+        return keys;
+    }
 
-        return escapesCheck;
+    /**
+     * Appends the current position's key. A full or shared array is replaced by one holding
+     * only the positions since the last capture or pawn move, which are all that can still
+     * repeat, so the keys stay bounded however long the game runs.
+     */
+    private void addPositionKey() {
+        if (positionKeysShared || positionCount == positionKeys.length) {
+            int keep = Math.min(positionCount, state.halfmoveClock);
+            long[] keys = new long[Math.max(16, keep * 2)];
+            System.arraycopy(positionKeys, positionCount - keep, keys, 0, keep);
+            positionKeys = keys;
+            positionCount = keep;
+            positionKeysShared = false;
+        }
+        positionKeys[positionCount++] = positionKey();
     }
+
     /**
-     * Determines if the given team is in stalemate, which here is defined as having
-     * no valid moves while not in check.
+     * Gets a 64-bit Zobrist key for the current position: piece placement, side to move,
+     * castling rights and en passant file. Equal games always have equal keys, and the
+     * key is built from the board's incrementally maintained key with a few xors. The
+     * move counters are left out, so a position reached again later has the same key.
      *
-     * @param teamColor which team to check for stalemate
-     * @return True if the specified team is in stalemate, otherwise false
+     * @return the position key
      */
-    public boolean isInStalemate(TeamColor teamColor) {
-        if (isInCheck(teamColor)) {
-            return false;
+    public long positionKey() {
+        long key = board.zobristKey() ^ Zobrist.CASTLING[state.castlingRights];
+        if (teamTurn == TeamColor.BLACK) {
+            key ^= Zobrist.BLACK_TO_MOVE;
         }
-        for (ChessPosition pos : getAllBoardPositions()) {
-            ChessPiece piece = board.getPiece(pos);
-            if (piece != null && piece.getTeamColor() == teamColor) {
-                if (hasEscapingMove(pos, piece, teamColor)) {
-                    return false;
-                }
-            }
+        int enPassant = capturableEnPassantSquare();
+        if (enPassant != ChessBoard.NO_SQUARE) {
+            key ^= Zobrist.EN_PASSANT_FILE[enPassant & 7];
         }
-        return true;
+        return key;
+    }
+
+    /**
+     * The en passant square only distinguishes a position when a pawn of the team to move
+     * could actually capture there, so two games that reach the same position by different
+     * pawn moves still compare equal.
+     *
+     * @return the en passant square if the team to move has a pawn attacking it, otherwise NO_SQUARE
+     */
+    private int capturableEnPassantSquare() {
+        int enPassantSquare = state.enPassantSquare(teamTurn);
+        if (enPassantSquare == ChessBoard.NO_SQUARE) {
+            return ChessBoard.NO_SQUARE;
+        }
+        long pawns = board.bitboards().pieces(teamTurn, ChessPiece.PieceType.PAWN);
+        int enemy = 1 - teamTurn.ordinal();
+        return (AttackTables.PAWN[enemy][enPassantSquare] & pawns) != 0 ? enPassantSquare : ChessBoard.NO_SQUARE;
     }
     /**
      * Sets this game's chessboard with a given board
@@ -467,7 +920,33 @@ public class ChessGame {
      * @param board the new board to use
      */
     public void setBoard(ChessBoard board) {
-        this.board = board;
+        checkWritable();
+        // a snapshot can seed a new game, but the game needs a board of its own to move on
+        this.board = board.isReadOnly() ? new ChessBoard(board) : board;
+        // a board on its own has no history, so assume any king and rook still on their
+        // starting squares haven't moved, and start the move counters over
+        this.state = new PositionState(castlingRightsFromBoard(board), PositionState.NO_EN_PASSANT, 0, 1);
+        clearUndo();
+        this.history = null;
+        this.positionKeys = null;
+    }
+
+    private static int castlingRightsFromBoard(ChessBoard board) {
+        int rights = 0;
+        if (isOnSquare(board, 1, 5, TeamColor.WHITE, ChessPiece.PieceType.KING)) {
+            rights |= isOnSquare(board, 1, 8, TeamColor.WHITE, ChessPiece.PieceType.ROOK) ? PositionState.WHITE_KINGSIDE : 0;
+            rights |= isOnSquare(board, 1, 1, TeamColor.WHITE, ChessPiece.PieceType.ROOK) ? PositionState.WHITE_QUEENSIDE : 0;
+        }
+        if (isOnSquare(board, 8, 5, TeamColor.BLACK, ChessPiece.PieceType.KING)) {
+            rights |= isOnSquare(board, 8, 8, TeamColor.BLACK, ChessPiece.PieceType.ROOK) ? PositionState.BLACK_KINGSIDE : 0;
+            rights |= isOnSquare(board, 8, 1, TeamColor.BLACK, ChessPiece.PieceType.ROOK) ? PositionState.BLACK_QUEENSIDE : 0;
+        }
+        return rights;
+    }
+
+    private static boolean isOnSquare(ChessBoard board, int row, int col, TeamColor color, ChessPiece.PieceType type) {
+        ChessPiece piece = board.pieceAt(Bitboards.square(row, col));
+        return piece != null && piece.getTeamColor() == color && piece.getPieceType() == type;
     }
     /**
      * Gets the current chessboard
@@ -477,16 +956,24 @@ public class ChessGame {
     public ChessBoard getBoard() {
         return board;
     }
+    private void checkWritable() {
+        if (board.isReadOnly()) {
+            throw new UnsupportedOperationException("Game snapshots are read-only");
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) {
             return false;
         }
         ChessGame chessGame = (ChessGame) o;
-        return Objects.equals(board, chessGame.board) && teamTurn == chessGame.teamTurn;
+        return Objects.equals(board, chessGame.board) && teamTurn == chessGame.teamTurn
+                && state.castlingRights == chessGame.state.castlingRights
+                && capturableEnPassantSquare() == chessGame.capturableEnPassantSquare();
     }
     @Override
     public int hashCode() {
-        return Objects.hash(board, teamTurn);
+        return Long.hashCode(positionKey());
     }
 }
\ No newline at end of file
@@ -14,6 +14,27 @@ public class ChessMove {
     private final ChessPosition endPosition;
     private final ChessPiece.PieceType promotionPiece;
 
+    // every on-board move and promotion, indexed by its PackedMove encoding without flags
+    private static final ChessMove[] MOVES = new ChessMove[1 << 15];
+    private static final ChessPiece.PieceType[] PROMOTIONS = {
+            null,
+            ChessPiece.PieceType.QUEEN,
+            ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.KNIGHT
+    };
+
+    static {
+        for (int from = 0; from < 64; from++) {
+            for (int to = 0; to < 64; to++) {
+                for (ChessPiece.PieceType promotion : PROMOTIONS) {
+                    int packed = PackedMove.encode(from, to, promotion, PackedMove.NO_FLAGS);
+                    MOVES[packed] = new ChessMove(ChessPosition.of(from), ChessPosition.of(to), promotion);
+                }
+            }
+        }
+    }
+
     public ChessMove(ChessPosition startPosition, ChessPosition endPosition,
                      ChessPiece.PieceType promotionPiece) {
         this.startPosition = startPosition;
@@ -21,6 +42,33 @@ public class ChessMove {
         this.promotionPiece = promotionPiece;
     }
 
+    /**
+     * Gets the shared move for a start, end and promotion, so callers don't allocate one
+     *
+     * @return the cached instance when both positions are on the board, otherwise a new move
+     */
+    public static ChessMove of(ChessPosition startPosition, ChessPosition endPosition,
+                               ChessPiece.PieceType promotionPiece) {
+        if (!isOnBoard(startPosition) || !isOnBoard(endPosition)
+                || promotionPiece == ChessPiece.PieceType.KING || promotionPiece == ChessPiece.PieceType.PAWN) {
+            return new ChessMove(startPosition, endPosition, promotionPiece);
+        }
+        return MOVES[PackedMove.encode(MoveCalculatorUtils.square(startPosition),
+                MoveCalculatorUtils.square(endPosition), promotionPiece, PackedMove.NO_FLAGS)];
+    }
+
+    /**
+     * @return the shared move for a PackedMove encoding, ignoring its flags
+     */
+    static ChessMove of(int packedMove) {
+        return MOVES[PackedMove.withoutFlags(packedMove)];
+    }
+
+    private static boolean isOnBoard(ChessPosition position) {
+        return position.getRow() >= 1 && position.getRow() <= 8
+                && position.getColumn() >= 1 && position.getColumn() <= 8;
+    }
+
     /**
      * @return ChessPosition of starting location
      */
@@ -52,6 +100,9 @@ public class ChessMove {
 
     @Override
     public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
         if (o == null || getClass() != o.getClass()) {
             return false;
         }
@@ -62,6 +113,7 @@ public class ChessMove {
 
     @Override
     public int hashCode() {
-        return Objects.hash(startPosition, endPosition, promotionPiece);
+        int promotion = promotionPiece == null ? 0 : promotionPiece.ordinal() + 1;
+        return (startPosition.hashCode() * 31 + endPosition.hashCode()) * 31 + promotion;
     }
 }
@@ -13,14 +13,45 @@ public class ChessPiece {
 
     private final ChessGame.TeamColor pieceColor;
     private final PieceType type;
-    private final PieceMovesCalculator movesCalculator;
-    private boolean hasMoved;
+
+    // calculators hold no state, so one per piece type is shared by every piece
+    private static final PieceMovesCalculator[] CALCULATORS = {
+        new KingMovesCalculator(),
+        new QueenMovesCalculator(),
+        new BishopMovesCalculator(),
+        new KnightMovesCalculator(),
+        new RookMovesCalculator(),
+        new PawnMovesCalculator()
+    };
+
+    // one shared instance per kind of piece, indexed like Bitboards kinds
+    private static final ChessPiece[] PIECES = new ChessPiece[Bitboards.KINDS];
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                PIECES[Bitboards.kind(color, type)] = new ChessPiece(color, type);
+            }
+        }
+    }
 
     public ChessPiece(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
         this.pieceColor = pieceColor;
         this.type = type;
-        this.movesCalculator = createCalculator(type);
-        this.hasMoved = false;
+    }
+
+    /**
+     * Gets the shared piece for a team and type. Pieces are immutable, so the board
+     * and move generation use these instead of allocating on every promotion or reset.
+     *
+     * @return the cached instance
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
+        return PIECES[Bitboards.kind(pieceColor, type)];
+    }
+
+    static ChessPiece of(int kind) {
+        return PIECES[kind];
     }
 
     /**
@@ -57,33 +88,53 @@ public class ChessPiece {
      * @return Collection of valid moves
      */
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        return movesCalculator.pieceMoves(board, myPosition);
+        return CALCULATORS[type.ordinal()].pieceMoves(board, myPosition);
     }
 
-    private PieceMovesCalculator createCalculator(PieceType type) {
-        return switch (type) {
-            case ROOK -> new RookMovesCalculator();
-            case BISHOP -> new BishopMovesCalculator();
-            case KNIGHT -> new KnightMovesCalculator();
-            case KING -> new KingMovesCalculator();
-            case QUEEN -> new QueenMovesCalculator();
-            case PAWN -> new PawnMovesCalculator();
-        };
+    /**
+     * Writes the same moves as {@link #pieceMoves(ChessBoard, ChessPosition)} into a reusable buffer
+     */
+    void pieceMoves(ChessBoard board, int square, MoveList moves) {
+        CALCULATORS[type.ordinal()].pieceMoves(board, square, moves);
     }
 
-    public void setMoved() {
-        hasMoved = true;
+    /**
+     * @return the piece's FEN letter, upper case for white and lower case for black
+     */
+    char symbol() {
+        char symbol = switch (type) {
+            case KING -> 'K';
+            case QUEEN -> 'Q';
+            case BISHOP -> 'B';
+            case KNIGHT -> 'N';
+            case ROOK -> 'R';
+            case PAWN -> 'P';
+        };
+        return pieceColor == ChessGame.TeamColor.WHITE ? symbol : Character.toLowerCase(symbol);
     }
 
-    public boolean hasMoved() {
-        return hasMoved;
+    /**
+     * @return the piece a FEN letter stands for, or null if it isn't one
+     */
+    static ChessPiece forSymbol(char symbol) {
+        ChessGame.TeamColor color = Character.isUpperCase(symbol) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        PieceType type = switch (Character.toUpperCase(symbol)) {
+            case 'K' -> PieceType.KING;
+            case 'Q' -> PieceType.QUEEN;
+            case 'B' -> PieceType.BISHOP;
+            case 'N' -> PieceType.KNIGHT;
+            case 'R' -> PieceType.ROOK;
+            case 'P' -> PieceType.PAWN;
+            default -> null;
+        };
+        return type == null ? null : of(color, type);
     }
 
-
-
-
     @Override
     public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
         if (o == null || getClass() != o.getClass()) {
             return false;
         }
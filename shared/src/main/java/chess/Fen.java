@@ -0,0 +1,230 @@
+package chess;
+
+/**
+ * Reads and writes Forsyth-Edwards Notation, e.g. the starting position
+ * {@code rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1}.
+ * <p>
+ * Parsing is a single left to right pass over the characters with no regular
+ * expressions or splitting, so loading a position allocates little beyond the
+ * board itself. The two clock fields may be left off, in which case they default
+ * to 0 and 1.
+ */
+final class Fen {
+    static final String STARTING_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final int MAX_CLOCK = 0xFFFF;
+
+    private Fen() {
+    }
+
+    static ChessGame readGame(String fen) {
+        fen = fen.strip();
+        ChessBoard board = new ChessBoard();
+        int i = readPlacement(board, fen);
+
+        i = skipSpaces(fen, i);
+        ChessGame.TeamColor teamTurn = switch (charAt(fen, i++)) {
+            case 'w' -> ChessGame.TeamColor.WHITE;
+            case 'b' -> ChessGame.TeamColor.BLACK;
+            default -> throw invalid(fen, "side to move must be w or b");
+        };
+
+        i = skipSpaces(fen, i);
+        int castlingRights = 0;
+        if (charAt(fen, i) == '-') {
+            i++;
+        } else {
+            for (; i < fen.length() && fen.charAt(i) != ' '; i++) {
+                castlingRights |= switch (fen.charAt(i)) {
+                    case 'K' -> PositionState.WHITE_KINGSIDE;
+                    case 'Q' -> PositionState.WHITE_QUEENSIDE;
+                    case 'k' -> PositionState.BLACK_KINGSIDE;
+                    case 'q' -> PositionState.BLACK_QUEENSIDE;
+                    default -> throw invalid(fen, "bad castling rights");
+                };
+            }
+        }
+
+        i = skipSpaces(fen, i);
+        int enPassantFile = PositionState.NO_EN_PASSANT;
+        if (charAt(fen, i) == '-') {
+            i++;
+        } else {
+            int file = charAt(fen, i) - 'a';
+            int row = charAt(fen, i + 1) - '0';
+            // the skipped square is behind the pawn that just moved two squares
+            int expectedRow = (teamTurn == ChessGame.TeamColor.WHITE) ? 6 : 3;
+            if (file < 0 || file > 7 || row != expectedRow) {
+                throw invalid(fen, "bad en passant square");
+            }
+            enPassantFile = file;
+            i += 2;
+        }
+
+        int halfmoveClock = 0;
+        int fullmoveNumber = 1;
+        if (i < fen.length()) {
+            i = skipSpaces(fen, i);
+            halfmoveClock = readNumber(fen, i);
+            i = skipDigits(fen, i);
+        }
+        if (i < fen.length()) {
+            i = skipSpaces(fen, i);
+            fullmoveNumber = readNumber(fen, i);
+            i = skipDigits(fen, i);
+        }
+        if (i != fen.length()) {
+            throw invalid(fen, "unexpected text after the last field");
+        }
+
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn(teamTurn);
+        game.setPositionState(new PositionState(castlingRights, enPassantFile, halfmoveClock, fullmoveNumber));
+        return game;
+    }
+
+    static String writeGame(ChessGame game) {
+        StringBuilder fen = new StringBuilder(90);
+        writePlacement(game.getBoard(), fen);
+        fen.append(game.getTeamTurn() == ChessGame.TeamColor.WHITE ? " w " : " b ");
+
+        PositionState state = game.getPositionState();
+        if (state.getCastlingRights() == 0) {
+            fen.append('-');
+        } else {
+            appendIf(fen, state.canCastle(PositionState.WHITE_KINGSIDE), 'K');
+            appendIf(fen, state.canCastle(PositionState.WHITE_QUEENSIDE), 'Q');
+            appendIf(fen, state.canCastle(PositionState.BLACK_KINGSIDE), 'k');
+            appendIf(fen, state.canCastle(PositionState.BLACK_QUEENSIDE), 'q');
+        }
+
+        fen.append(' ');
+        if (state.getEnPassantFile() == PositionState.NO_EN_PASSANT) {
+            fen.append('-');
+        } else {
+            fen.append((char) ('a' + state.getEnPassantFile()))
+                    .append(game.getTeamTurn() == ChessGame.TeamColor.WHITE ? '6' : '3');
+        }
+
+        fen.append(' ').append(state.getHalfmoveClock()).append(' ').append(state.getFullmoveNumber());
+        return fen.toString();
+    }
+
+    /**
+     * Fills board from the placement field at the start of fen, rank 8 first
+     *
+     * @return index of the first character after the placement field
+     */
+    static int readPlacement(ChessBoard board, String fen) {
+        board.clearBoard();
+        int row = 8;
+        int col = 1;
+        int i = 0;
+        for (; i < fen.length(); i++) {
+            char c = fen.charAt(i);
+            if (c == ' ') {
+                break;
+            }
+            if (c == '/') {
+                if (col != 9 || row == 1) {
+                    throw invalid(fen, "rank " + row + " doesn't have 8 squares");
+                }
+                row--;
+                col = 1;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+            } else {
+                ChessPiece piece = ChessPiece.forSymbol(c);
+                if (piece == null) {
+                    throw invalid(fen, "unknown piece '" + c + "'");
+                }
+                if (col > 8) {
+                    throw invalid(fen, "rank " + row + " has more than 8 squares");
+                }
+                board.setPiece(Bitboards.square(row, col), piece);
+                col++;
+            }
+            if (col > 9) {
+                throw invalid(fen, "rank " + row + " has more than 8 squares");
+            }
+        }
+        if (row != 1 || col != 9) {
+            throw invalid(fen, "placement doesn't cover 8 ranks of 8 squares");
+        }
+        return i;
+    }
+
+    static void writePlacement(ChessBoard board, StringBuilder fen) {
+        for (int row = 8; row >= 1; row--) {
+            int empty = 0;
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = board.pieceAt(Bitboards.square(row, col));
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                fen.append(piece.symbol());
+            }
+            if (empty > 0) {
+                fen.append((char) ('0' + empty));
+            }
+            if (row > 1) {
+                fen.append('/');
+            }
+        }
+    }
+
+    private static void appendIf(StringBuilder fen, boolean condition, char c) {
+        if (condition) {
+            fen.append(c);
+        }
+    }
+
+    private static char charAt(String fen, int i) {
+        if (i >= fen.length()) {
+            throw invalid(fen, "missing fields");
+        }
+        return fen.charAt(i);
+    }
+
+    private static int skipSpaces(String fen, int i) {
+        if (charAt(fen, i) != ' ') {
+            throw invalid(fen, "fields must be separated by spaces");
+        }
+        while (i < fen.length() && fen.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipDigits(String fen, int i) {
+        while (i < fen.length() && fen.charAt(i) >= '0' && fen.charAt(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int readNumber(String fen, int i) {
+        int value = 0;
+        int end = skipDigits(fen, i);
+        if (end == i) {
+            throw invalid(fen, "move counters must be numbers");
+        }
+        for (; i < end; i++) {
+            value = value * 10 + (fen.charAt(i) - '0');
+            if (value > MAX_CLOCK) {
+                throw invalid(fen, "move counter out of range");
+            }
+        }
+        return value;
+    }
+
+    private static IllegalArgumentException invalid(String fen, String reason) {
+        return new IllegalArgumentException("Invalid FEN \"" + fen + "\": " + reason);
+    }
+}
@@ -1,27 +1,12 @@
 package chess;
 
-import java.util.ArrayList;
-import java.util.Collection;
-
-import static chess.MoveCalculatorUtils.staticMoves;
+import static chess.MoveCalculatorUtils.targetMoves;
 
 public class KingMovesCalculator implements PieceMovesCalculator {
     @Override
-    public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        Collection<ChessMove> validMoves = new ArrayList<>();
-
-        int[][] directions = {
-                {-1,  1},
-                {-1, -1},
-                { 1,  1},
-                { 1, -1},
-                { 1, 0 },
-                {-1, 0 },
-                { 0, 1 },
-                { 0,-1 }
-        };
+    public void pieceMoves(ChessBoard board, int square, MoveList moves) {
+        long targets = AttackTables.KING[square];
 
-        staticMoves(board, myPosition, directions, validMoves);
-        return validMoves;
+        targetMoves(board, square, targets, moves);
     }
 }
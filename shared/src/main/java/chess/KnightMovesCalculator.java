@@ -1,28 +1,12 @@
 package chess;
 
-import java.util.ArrayList;
-import java.util.Collection;
-
-import static chess.MoveCalculatorUtils.staticMoves;
+import static chess.MoveCalculatorUtils.targetMoves;
 
 public class KnightMovesCalculator implements PieceMovesCalculator {
     @Override
-    public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        Collection<ChessMove> validMoves = new ArrayList<>();
-
-        int[][] directions = {
-                { 2,  1},
-                { 2, -1},
-                {-2,  1},
-                {-2, -1},
-                { 1,  2},
-                {-1, -2},
-                { 1, -2},
-                {-1,  2}
-        };
+    public void pieceMoves(ChessBoard board, int square, MoveList moves) {
+        long targets = AttackTables.KNIGHT[square];
 
-        staticMoves(board, myPosition, directions, validMoves);
-        return validMoves;
+        targetMoves(board, square, targets, moves);
     }
 }
-
@@ -1,59 +1,22 @@
 package chess;
 
-import java.util.Collection;
-
 public class MoveCalculatorUtils {
-    public static void slidingMoves(ChessBoard board, ChessPosition myPosition, int[][] directions, Collection<ChessMove> moves) {
-        ChessGame.TeamColor myColor = board.getPiece(myPosition).getTeamColor();
-        for (int[] dir : directions) {
-            int row = myPosition.getRow();
-            int col = myPosition.getColumn();
-
-            while (true) {
-                row += dir[0];
-                col += dir[1];
-
-                // Stop if off board
-                if (row < 1 || row > 8 || col < 1 || col > 8) {
-                    break;
-                }
-                ChessPosition possiblePosition = new ChessPosition(row, col);
-                ChessMove possibleMove = new ChessMove(myPosition, possiblePosition, null);
-                // Spot is empty
-                if (board.getPiece(possiblePosition) == null) {
-                    moves.add(possibleMove);
-                }
-                // Spot has teams color, can't move there or past, break loop
-                else if (board.getPiece(possiblePosition).getTeamColor() == myColor) {
-                    break;
-                }
-                // Spot has other teams color, can move there but not past, add move and break loop
-                else {
-                    moves.add(possibleMove);
-                    break;
-                }
-            }
+    /**
+     * Adds a move from square to every square in targets that isn't held by the moving team
+     *
+     * @param targets bitboard of squares the piece attacks, see {@link AttackTables}
+     */
+    static void targetMoves(ChessBoard board, int square, long targets, MoveList moves) {
+        int kind = Bitboards.kind(board.pieceAt(square));
+        targets &= ~board.bitboards().teams[Bitboards.team(kind)];
+        while (targets != 0) {
+            int target = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            moves.add(PackedMove.encode(square, target, null, PackedMove.NO_FLAGS));
         }
     }
-    public static void staticMoves(ChessBoard board, ChessPosition myPosition, int[][] directions, Collection<ChessMove> moves) {
-        ChessGame.TeamColor myColor = board.getPiece(myPosition).getTeamColor();
-        for (int[] dir : directions) {
-            int row = myPosition.getRow();
-            int col = myPosition.getColumn();
 
-            row += dir[0];
-            col += dir[1];
-
-            // Stop if off board
-            if (row < 1 || row > 8 || col < 1 || col > 8) {
-                continue;
-            }
-            ChessPosition possiblePosition = new ChessPosition(row, col);
-            ChessMove possibleMove = new ChessMove(myPosition, possiblePosition, null);
-            // Spot is empty or the other teams color
-            if (board.getPiece(possiblePosition) == null || board.getPiece(possiblePosition).getTeamColor() != myColor) {
-                moves.add(possibleMove);
-            }
-        }
+    static int square(ChessPosition position) {
+        return Bitboards.square(position.getRow(), position.getColumn());
     }
 }
@@ -0,0 +1,212 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The moves played in a game, in order, stored as {@link PackedMove} ints after the
+ * position the game started from.
+ * <p>
+ * Every {@value #SNAPSHOT_INTERVAL} moves a read-only snapshot of the position is kept, so
+ * rebuilding the position at any ply starts from the nearest snapshot at or before it
+ * and replays at most {@value #SNAPSHOT_INTERVAL} - 1 unchecked moves. Snapshots aren't
+ * serialized; they are rebuilt from the start position the first time they are needed.
+ * <p>
+ * A history taken from a snapshot or a replay shares its move array with the history
+ * it came from. The history is append-only, so the shared entries never change, and
+ * a copy that records a move of its own copies the array first.
+ */
+public final class MoveHistory {
+    static final int SNAPSHOT_INTERVAL = 32;
+
+    private final String startFen;
+    private int[] moves;
+    private int size;
+    // snapshots[i] is the game after i * SNAPSHOT_INTERVAL moves
+    private transient ChessGame[] snapshots;
+    // true while moves and snapshots may also belong to another history
+    private transient boolean shared;
+
+    /**
+     * Starts an empty history at the game's current position
+     */
+    MoveHistory(ChessGame start) {
+        this.startFen = start.toFen();
+        this.moves = new int[64];
+        this.snapshots = new ChessGame[4];
+        this.snapshots[0] = start.positionSnapshot();
+    }
+
+    /**
+     * A view of the first ply moves of other, sharing its storage until it records a move
+     */
+    MoveHistory(MoveHistory other, int ply) {
+        this.startFen = other.startFen;
+        this.moves = other.moves;
+        this.size = ply;
+        this.snapshots = other.snapshots;
+        this.shared = true;
+    }
+
+    /**
+     * Appends a move that was just made
+     *
+     * @param move the move, as made with {@link ChessGame#makeMove(int)}
+     * @param game the game after the move
+     */
+    void record(int move, ChessGame game) {
+        if (shared) {
+            moves = Arrays.copyOf(moves, Math.max(size * 2, 64));
+            // drop any snapshots the other history took past this one's last move
+            snapshots = snapshots == null ? null : Arrays.copyOf(snapshots, size / SNAPSHOT_INTERVAL + 1);
+            shared = false;
+        } else if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+
+        if (snapshots != null && size % SNAPSHOT_INTERVAL == 0) {
+            int index = size / SNAPSHOT_INTERVAL;
+            if (index == snapshots.length) {
+                snapshots = Arrays.copyOf(snapshots, index * 2);
+            }
+            snapshots[index] = game.positionSnapshot();
+        }
+    }
+
+    /**
+     * @return the FEN of the position before the first move
+     */
+    public String getStartFen() {
+        return startFen;
+    }
+
+    /**
+     * @return the number of moves (plies) played
+     */
+    public int size() {
+        return size;
+    }
+
+    public ChessMove get(int ply) {
+        checkPly(ply, size - 1);
+        return PackedMove.toChessMove(moves[ply]);
+    }
+
+    /**
+     * Rebuilds the game as it stood after the given number of moves. The moves were all
+     * legal when they were recorded, so they are replayed without being checked again.
+     *
+     * @param ply number of moves to replay, 0 for the start position
+     * @return a new game whose history is the first ply moves of this one
+     */
+    public ChessGame replay(int ply) {
+        checkPly(ply, size);
+        ChessGame[] snapshots = snapshots();
+        int index = ply / SNAPSHOT_INTERVAL;
+        ChessGame game = new ChessGame(snapshots[index]);
+        for (int i = index * SNAPSHOT_INTERVAL; i < ply; i++) {
+            game.playMove(moves[i]);
+        }
+        game.setMoveHistory(new MoveHistory(this, ply));
+        return game;
+    }
+
+    /**
+     * @return the game after every recorded move
+     */
+    public ChessGame replay() {
+        return replay(size);
+    }
+
+    /**
+     * @return the key of every position in the game, oldest first, the start position included
+     */
+    long[] positionKeys() {
+        ChessGame game = new ChessGame(snapshots()[0]);
+        long[] keys = new long[size + 1];
+        keys[0] = game.positionKey();
+        for (int i = 0; i < size; i++) {
+            game.playMove(moves[i]);
+            keys[i + 1] = game.positionKey();
+        }
+        return keys;
+    }
+
+    /**
+     * @return each move in UCI notation, e.g. {@code [e2e4, e7e5, g1f3]}
+     */
+    public List<String> toUci() {
+        List<String> uci = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            uci.add(Notation.toUci(moves[i]));
+        }
+        return uci;
+    }
+
+    /**
+     * @return each move in Standard Algebraic Notation, e.g. {@code [e4, e5, Nf3]}
+     */
+    public List<String> toSan() {
+        List<String> san = new ArrayList<>(size);
+        ChessGame game = new ChessGame(snapshots()[0]);
+        MoveList legal = new MoveList();
+        for (int i = 0; i < size; i++) {
+            game.legalMoves(game.getTeamTurn(), legal);
+            san.add(Notation.toSan(game, moves[i], legal));
+            game.playMove(moves[i]);
+        }
+        return san;
+    }
+
+    /**
+     * Plays a move log from a start position, checking every move
+     *
+     * @param startFen position before the first move
+     * @param uciMoves the moves in UCI notation
+     * @return the game after the last move, with the moves as its history
+     * @throws InvalidMoveException if a move isn't legal where it is played
+     */
+    public static ChessGame replayUci(String startFen, List<String> uciMoves) throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen(startFen);
+        for (String uci : uciMoves) {
+            game.makeMove(Notation.fromUci(uci));
+        }
+        return game;
+    }
+
+    /**
+     * Same as {@link #replayUci}, for moves written in Standard Algebraic Notation
+     */
+    public static ChessGame replaySan(String startFen, List<String> sanMoves) throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen(startFen);
+        for (String san : sanMoves) {
+            game.makeMove(Notation.fromSan(game, san));
+        }
+        return game;
+    }
+
+    private ChessGame[] snapshots() {
+        if (snapshots == null) {
+            // lost in serialization, so replay the whole game once to take them again
+            ChessGame[] rebuilt = new ChessGame[size / SNAPSHOT_INTERVAL + 1];
+            ChessGame game = ChessGame.fromFen(startFen);
+            rebuilt[0] = game.positionSnapshot();
+            for (int i = 0; i < size; i++) {
+                game.playMove(moves[i]);
+                if ((i + 1) % SNAPSHOT_INTERVAL == 0) {
+                    rebuilt[(i + 1) / SNAPSHOT_INTERVAL] = game.positionSnapshot();
+                }
+            }
+            snapshots = rebuilt;
+        }
+        return snapshots;
+    }
+
+    private static void checkPly(int ply, int max) {
+        if (ply < 0 || ply > max) {
+            throw new IndexOutOfBoundsException("Ply " + ply + " out of range 0.." + max);
+        }
+    }
+}
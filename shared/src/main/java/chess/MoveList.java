@@ -0,0 +1,64 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A growable buffer of {@link PackedMove} encodings that is cleared and refilled
+ * rather than reallocated, so repeated move generation doesn't create garbage.
+ */
+final class MoveList {
+    private int[] moves;
+    private int size;
+
+    MoveList() {
+        this(256);
+    }
+
+    MoveList(int capacity) {
+        moves = new int[capacity];
+    }
+
+    void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+    }
+
+    int get(int index) {
+        return moves[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return the stored encoding matching move's start, end and promotion, or -1 if absent
+     */
+    int find(int move) {
+        for (int i = 0; i < size; i++) {
+            if (PackedMove.sameMove(moves[i], move)) {
+                return moves[i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return a new collection of ChessMove objects, for handing moves across the public API
+     */
+    Collection<ChessMove> toChessMoves() {
+        Collection<ChessMove> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(PackedMove.toChessMove(moves[i]));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,276 @@
+package chess;
+
+/**
+ * Formats and parses moves in UCI notation ({@code e2e4}, {@code e7e8q}) and
+ * Standard Algebraic Notation ({@code e4}, {@code Nbd7}, {@code exd6}, {@code O-O},
+ * {@code e8=Q+}).
+ * <p>
+ * UCI describes a move by its squares alone, so it can be read and written without
+ * a position. SAN names the piece and only as much of its start square as needed,
+ * so both directions are worked out against the legal moves of a game.
+ */
+public final class Notation {
+
+    private Notation() {
+    }
+
+    /**
+     * @return the move in UCI form; castling is written as the king's two square move
+     */
+    public static String toUci(ChessMove move) {
+        return toUci(PackedMove.encode(move));
+    }
+
+    static String toUci(int move) {
+        StringBuilder uci = new StringBuilder(5);
+        appendSquare(uci, PackedMove.from(move));
+        appendSquare(uci, PackedMove.to(move));
+        ChessPiece.PieceType promotion = PackedMove.promotion(move);
+        if (promotion != null) {
+            uci.append(Character.toLowerCase(ChessPiece.of(ChessGame.TeamColor.WHITE, promotion).symbol()));
+        }
+        return uci.toString();
+    }
+
+    /**
+     * @param uci a move such as {@code g1f3} or {@code a7a8n}
+     * @return the move, which may or may not be legal in any given position
+     * @throws IllegalArgumentException if the text isn't a UCI move
+     */
+    public static ChessMove fromUci(String uci) {
+        if (uci.length() != 4 && uci.length() != 5) {
+            throw new IllegalArgumentException("Invalid UCI move \"" + uci + "\"");
+        }
+        int from = parseSquare(uci, 0);
+        int to = parseSquare(uci, 2);
+        ChessPiece.PieceType promotion = null;
+        if (uci.length() == 5) {
+            promotion = promotionType(uci.charAt(4));
+            if (promotion == null) {
+                throw new IllegalArgumentException("Invalid UCI move \"" + uci + "\"");
+            }
+        }
+        if (from < 0 || to < 0) {
+            throw new IllegalArgumentException("Invalid UCI move \"" + uci + "\"");
+        }
+        return ChessMove.of(PackedMove.encode(from, to, promotion, PackedMove.NO_FLAGS));
+    }
+
+    /**
+     * @param game the game the move is about to be made in
+     * @param move a move that is legal in game's current position
+     * @return the move in SAN, with a + or # suffix when it gives check or mate
+     * @throws InvalidMoveException if move isn't legal in game
+     */
+    public static String toSan(ChessGame game, ChessMove move) throws InvalidMoveException {
+        MoveList legal = new MoveList();
+        game.legalMoves(game.getTeamTurn(), legal);
+        int packed = legal.find(PackedMove.encode(move));
+        if (packed == -1) {
+            throw new InvalidMoveException("Move not valid: " + move);
+        }
+        return toSan(game, packed, legal);
+    }
+
+    /**
+     * @param legal every legal move in game's position, used to decide how much of the
+     *              start square has to be written
+     */
+    static String toSan(ChessGame game, int move, MoveList legal) {
+        ChessBoard board = game.getBoard();
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        ChessPiece piece = board.pieceAt(from);
+        StringBuilder san = new StringBuilder(8);
+
+        if (PackedMove.hasFlag(move, PackedMove.CASTLE)) {
+            san.append(to > from ? "O-O" : "O-O-O");
+        } else {
+            boolean capture = board.pieceAt(to) != null || PackedMove.hasFlag(move, PackedMove.EN_PASSANT);
+            if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+                if (capture) {
+                    san.append((char) ('a' + (from & 7)));
+                }
+            } else {
+                san.append(Character.toUpperCase(piece.symbol()));
+                appendDisambiguation(san, board, move, legal);
+            }
+            if (capture) {
+                san.append('x');
+            }
+            appendSquare(san, to);
+            ChessPiece.PieceType promotion = PackedMove.promotion(move);
+            if (promotion != null) {
+                san.append('=').append(ChessPiece.of(ChessGame.TeamColor.WHITE, promotion).symbol());
+            }
+        }
+
+        // play the move out to see whether it checks or mates
+        ChessGame scratch = game.getBoard().isReadOnly() ? game.positionCopy() : game;
+        scratch.makeMove(move);
+        ChessGame.GameStatus status = scratch.getMoveStatus(scratch.getTeamTurn());
+        scratch.unmakeMove();
+        if (status == ChessGame.GameStatus.CHECKMATE) {
+            san.append('#');
+        } else if (status == ChessGame.GameStatus.CHECK) {
+            san.append('+');
+        }
+        return san.toString();
+    }
+
+    /**
+     * Finds the legal move a SAN string describes. Check and annotation suffixes
+     * ({@code + # ! ?}) are ignored, castling may use letter O or digit 0, and the
+     * promotion's = sign is optional.
+     *
+     * @throws InvalidMoveException if the text doesn't describe exactly one legal move
+     */
+    public static ChessMove fromSan(ChessGame game, String san) throws InvalidMoveException {
+        MoveList legal = new MoveList();
+        game.legalMoves(game.getTeamTurn(), legal);
+        int move = fromSan(game, san, legal);
+        return PackedMove.toChessMove(move);
+    }
+
+    /**
+     * @return the matching entry of legal, flags included
+     */
+    static int fromSan(ChessGame game, String san, MoveList legal) throws InvalidMoveException {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        String text = san.substring(0, end);
+        ChessBoard board = game.getBoard();
+
+        if (text.equals("O-O") || text.equals("0-0") || text.equals("O-O-O") || text.equals("0-0-0")) {
+            boolean kingside = text.length() == 3;
+            for (int i = 0; i < legal.size(); i++) {
+                int move = legal.get(i);
+                if (PackedMove.hasFlag(move, PackedMove.CASTLE) && (PackedMove.to(move) > PackedMove.from(move)) == kingside) {
+                    return move;
+                }
+            }
+            throw new InvalidMoveException("Move not valid: " + san);
+        }
+
+        // work backwards: promotion, target square, capture mark, then whatever is left
+        // every other move ends in its target square's rank digit
+        ChessPiece.PieceType promotion = end > 0 ? promotionType(Character.toLowerCase(text.charAt(end - 1))) : null;
+        if (promotion != null) {
+            end--;
+            if (end > 0 && text.charAt(end - 1) == '=') {
+                end--;
+            }
+        }
+        if (end < 2) {
+            throw new InvalidMoveException("Move not valid: " + san);
+        }
+        int to = parseSquare(text, end - 2);
+        if (to < 0) {
+            throw new InvalidMoveException("Move not valid: " + san);
+        }
+        end -= 2;
+        if (end > 0 && text.charAt(end - 1) == 'x') {
+            end--;
+        }
+
+        int start = 0;
+        ChessPiece.PieceType type = ChessPiece.PieceType.PAWN;
+        if (end > 0 && "KQRBN".indexOf(text.charAt(0)) >= 0) {
+            type = ChessPiece.forSymbol(text.charAt(0)).getPieceType();
+            start = 1;
+        }
+        int fromFile = -1;
+        int fromRow = -1;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= 'a' && c <= 'h') {
+                fromFile = c - 'a';
+            } else if (c >= '1' && c <= '8') {
+                fromRow = c - '1';
+            } else {
+                throw new InvalidMoveException("Move not valid: " + san);
+            }
+        }
+
+        int found = -1;
+        for (int i = 0; i < legal.size(); i++) {
+            int move = legal.get(i);
+            int from = PackedMove.from(move);
+            if (PackedMove.to(move) != to || PackedMove.promotion(move) != promotion
+                    || PackedMove.hasFlag(move, PackedMove.CASTLE)
+                    || board.pieceAt(from).getPieceType() != type
+                    || (fromFile >= 0 && (from & 7) != fromFile) || (fromRow >= 0 && (from >>> 3) != fromRow)) {
+                continue;
+            }
+            if (found != -1) {
+                throw new InvalidMoveException("Ambiguous move: " + san);
+            }
+            found = move;
+        }
+        if (found == -1) {
+            throw new InvalidMoveException("Move not valid: " + san);
+        }
+        return found;
+    }
+
+    /**
+     * Adds the start file, rank or both when another piece of the same type could also
+     * reach the target square
+     */
+    private static void appendDisambiguation(StringBuilder san, ChessBoard board, int move, MoveList legal) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        ChessPiece piece = board.pieceAt(from);
+        boolean ambiguous = false;
+        boolean sameFile = false;
+        boolean sameRow = false;
+        for (int i = 0; i < legal.size(); i++) {
+            int other = legal.get(i);
+            int otherFrom = PackedMove.from(other);
+            if (PackedMove.to(other) != to || otherFrom == from || !piece.equals(board.pieceAt(otherFrom))) {
+                continue;
+            }
+            ambiguous = true;
+            sameFile |= (otherFrom & 7) == (from & 7);
+            sameRow |= (otherFrom >>> 3) == (from >>> 3);
+        }
+        if (!ambiguous) {
+            return;
+        }
+        if (!sameFile) {
+            san.append((char) ('a' + (from & 7)));
+        } else if (!sameRow) {
+            san.append((char) ('1' + (from >>> 3)));
+        } else {
+            appendSquare(san, from);
+        }
+    }
+
+    private static void appendSquare(StringBuilder text, int square) {
+        text.append((char) ('a' + (square & 7))).append((char) ('1' + (square >>> 3)));
+    }
+
+    /**
+     * @return the square index named at text[at..at+1], or -1 if it isn't a square
+     */
+    private static int parseSquare(String text, int at) {
+        int file = text.charAt(at) - 'a';
+        int rank = text.charAt(at + 1) - '1';
+        if (file < 0 || file > 7 || rank < 0 || rank > 7) {
+            return -1;
+        }
+        return rank * 8 + file;
+    }
+
+    private static ChessPiece.PieceType promotionType(char c) {
+        return switch (c) {
+            case 'q' -> ChessPiece.PieceType.QUEEN;
+            case 'r' -> ChessPiece.PieceType.ROOK;
+            case 'b' -> ChessPiece.PieceType.BISHOP;
+            case 'n' -> ChessPiece.PieceType.KNIGHT;
+            default -> null;
+        };
+    }
+}
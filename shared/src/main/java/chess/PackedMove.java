@@ -0,0 +1,64 @@
+package chess;
+
+/**
+ * Encodes a move in a single int so move generation can fill a reusable
+ * {@link MoveList} instead of allocating a {@link ChessMove} per candidate.
+ * <p>
+ * Layout, low bits first: 6 bits start square, 6 bits end square,
+ * 3 bits promotion type (0 for none, otherwise {@code PieceType.ordinal() + 1}),
+ * then the flag bits below.
+ */
+final class PackedMove {
+    static final int NO_FLAGS = 0;
+    static final int DOUBLE_PUSH = 1 << 15;
+    static final int EN_PASSANT = 1 << 16;
+    static final int CASTLE = 1 << 17;
+
+    private static final int MOVE_MASK = (1 << 15) - 1;
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private PackedMove() {
+    }
+
+    static int encode(int from, int to, ChessPiece.PieceType promotion, int flags) {
+        int promotionBits = promotion == null ? 0 : promotion.ordinal() + 1;
+        return from | (to << 6) | (promotionBits << 12) | flags;
+    }
+
+    static int encode(ChessMove move) {
+        return encode(MoveCalculatorUtils.square(move.getStartPosition()),
+                MoveCalculatorUtils.square(move.getEndPosition()), move.getPromotionPiece(), NO_FLAGS);
+    }
+
+    static int from(int move) {
+        return move & 63;
+    }
+
+    static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    static ChessPiece.PieceType promotion(int move) {
+        int bits = (move >>> 12) & 7;
+        return bits == 0 ? null : TYPES[bits - 1];
+    }
+
+    static boolean hasFlag(int move, int flag) {
+        return (move & flag) != 0;
+    }
+
+    /**
+     * @return true if both encodings describe the same start, end and promotion, ignoring flags
+     */
+    static boolean sameMove(int a, int b) {
+        return (a & MOVE_MASK) == (b & MOVE_MASK);
+    }
+
+    static int withoutFlags(int move) {
+        return move & MOVE_MASK;
+    }
+
+    static ChessMove toChessMove(int move) {
+        return ChessMove.of(move);
+    }
+}
@@ -1,69 +1,51 @@
 package chess;
 
-import java.util.ArrayList;
-import java.util.Collection;
-
 public class PawnMovesCalculator implements PieceMovesCalculator {
     @Override
-    public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        Collection<ChessMove> validMoves = new ArrayList<>();
-
-        ChessGame.TeamColor myColor = board.getPiece(myPosition).getTeamColor();
-        int direction = (myColor == ChessGame.TeamColor.WHITE) ? 1 : -1;
-        int startRow = (myColor == ChessGame.TeamColor.WHITE) ? 2 : 7;
-        int promotionRow = (myColor == ChessGame.TeamColor.WHITE) ? 8 : 1;
-
-        int row = myPosition.getRow();
-        int col = myPosition.getColumn();
-
-        ChessPosition forwardPosition = new ChessPosition(row + direction, col);
-        ChessPosition doubleForwardPosition = new ChessPosition(row + 2*direction, col);
-        ChessPosition leftPosition = new ChessPosition(row + direction, col - 1);
-        ChessPosition rightPosition = new ChessPosition(row + direction, col + 1);
-
-        // check if spot in front is empty
-        if (board.getPiece(forwardPosition) == null) {
-            // check if in promotion position
-            if (row == promotionRow - direction) {
-                addPromotionMoves(validMoves, myPosition, forwardPosition);
+    public void pieceMoves(ChessBoard board, int square, MoveList moves) {
+        Bitboards bitboards = board.bitboards();
+        int team = Bitboards.team(Bitboards.kind(board.pieceAt(square)));
+        int direction = (team == 0) ? 8 : -8;
+        int startRow = (team == 0) ? 2 : 7;
+        int promotionRow = (team == 0) ? 8 : 1;
+
+        int row = Bitboards.row(square);
+        boolean promotes = row == promotionRow - Integer.signum(direction);
+
+        int forward = square + direction;
+        // check if spot in front is on the board and empty
+        if (forward >= 0 && forward < 64 && (bitboards.occupied & (1L << forward)) == 0) {
+            if (promotes) {
+                addPromotionMoves(moves, square, forward);
             }
-            // if not, add the forward move without promotion and check if in starting position
+            // if not promoting, add the forward move and check if in starting position
             else {
-                validMoves.add(new ChessMove(myPosition, forwardPosition, null));
-                if (row == startRow && board.getPiece(doubleForwardPosition) == null) {
-                    validMoves.add(new ChessMove(myPosition, doubleForwardPosition, null));
+                moves.add(PackedMove.encode(square, forward, null, PackedMove.NO_FLAGS));
+                int doubleForward = forward + direction;
+                if (row == startRow && (bitboards.occupied & (1L << doubleForward)) == 0) {
+                    moves.add(PackedMove.encode(square, doubleForward, null, PackedMove.DOUBLE_PUSH));
                 }
             }
-
-        }
-        // check if spot in front and to left is an enemy piece
-        if (col > 1 && board.getPiece(leftPosition) != null &&
-                board.getPiece(leftPosition).getTeamColor() != myColor) {
-            if (row == promotionRow - direction) {
-                addPromotionMoves(validMoves, myPosition, leftPosition);
-            }
-            else {
-                validMoves.add(new ChessMove(myPosition, leftPosition, null));
-            }
         }
-        // check if spot in front and to right is an enemy piece
-        if (col < 8 && board.getPiece(rightPosition) != null &&
-                board.getPiece(rightPosition).getTeamColor() != myColor) {
-            if (row == promotionRow - direction) {
-                addPromotionMoves(validMoves, myPosition, rightPosition);
+        // diagonal spots holding an enemy piece
+        long captures = AttackTables.PAWN[team][square] & bitboards.teams[1 - team];
+        while (captures != 0) {
+            int target = Long.numberOfTrailingZeros(captures);
+            captures &= captures - 1;
+            if (promotes) {
+                addPromotionMoves(moves, square, target);
             }
             else {
-                validMoves.add(new ChessMove(myPosition, rightPosition, null));
+                moves.add(PackedMove.encode(square, target, null, PackedMove.NO_FLAGS));
             }
         }
-        return validMoves;
     }
 
-    private void addPromotionMoves(Collection<ChessMove> moves, ChessPosition startPosition, ChessPosition endPosition) {
-        moves.add(new ChessMove(startPosition, endPosition, ChessPiece.PieceType.QUEEN));
-        moves.add(new ChessMove(startPosition, endPosition, ChessPiece.PieceType.ROOK));
-        moves.add(new ChessMove(startPosition, endPosition, ChessPiece.PieceType.BISHOP));
-        moves.add(new ChessMove(startPosition, endPosition, ChessPiece.PieceType.KNIGHT));
+    private void addPromotionMoves(MoveList moves, int from, int to) {
+        moves.add(PackedMove.encode(from, to, ChessPiece.PieceType.QUEEN, PackedMove.NO_FLAGS));
+        moves.add(PackedMove.encode(from, to, ChessPiece.PieceType.ROOK, PackedMove.NO_FLAGS));
+        moves.add(PackedMove.encode(from, to, ChessPiece.PieceType.BISHOP, PackedMove.NO_FLAGS));
+        moves.add(PackedMove.encode(from, to, ChessPiece.PieceType.KNIGHT, PackedMove.NO_FLAGS));
     }
 
 }
@@ -0,0 +1,54 @@
+package chess;
+
+/**
+ * Perft ("performance test") counts every leaf of the legal move tree below a
+ * position to a fixed depth. Published node counts for well known positions make
+ * it the standard correctness check for a move generator, and nodes per second
+ * is a direct measure of its speed.
+ * <p>
+ * Moves are applied and taken back on the given game, which is left unchanged
+ * once a count finishes.
+ */
+public final class Perft {
+    private final ChessGame game;
+    // one buffer per remaining depth so recursion never overwrites a list being walked
+    private MoveList[] moves = new MoveList[0];
+
+    public Perft(ChessGame game) {
+        this.game = game;
+    }
+
+    /**
+     * @param depth number of plies to search, 0 counts the position itself
+     * @return number of positions reachable in exactly depth legal moves
+     */
+    public long count(int depth) {
+        if (depth >= moves.length) {
+            MoveList[] grown = new MoveList[depth + 1];
+            for (int i = 0; i < grown.length; i++) {
+                grown[i] = i < moves.length ? moves[i] : new MoveList();
+            }
+            moves = grown;
+        }
+        return search(depth);
+    }
+
+    private long search(int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        MoveList list = moves[depth];
+        game.legalMoves(game.getTeamTurn(), list);
+        // every legal move at the last ply is a leaf, no need to play it
+        if (depth == 1) {
+            return list.size();
+        }
+        long nodes = 0;
+        for (int i = 0; i < list.size(); i++) {
+            game.makeMove(list.get(i));
+            nodes += search(depth - 1);
+            game.unmakeMove();
+        }
+        return nodes;
+    }
+}
@@ -2,5 +2,14 @@ package chess;
 import java.util.Collection;
 
 public interface PieceMovesCalculator {
-    Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition);
+    /**
+     * Writes the piece's moves from square into moves as {@link PackedMove} encodings
+     */
+    void pieceMoves(ChessBoard board, int square, MoveList moves);
+
+    default Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
+        MoveList moves = new MoveList(32);
+        pieceMoves(board, MoveCalculatorUtils.square(myPosition), moves);
+        return moves.toChessMoves();
+    }
 }
@@ -0,0 +1,124 @@
+package chess;
+
+import java.util.Base64;
+
+/**
+ * Fixed size binary encoding of a game's position, for storing in the database
+ * and sending to clients in place of the JSON form of {@link ChessGame}.
+ * <p>
+ * The layout is {@value #ENCODED_LENGTH} bytes:
+ * <ul>
+ *     <li>bytes 0-31: one nibble per square, a1 first, low nibble before high nibble.
+ *     0 is an empty square and 1-12 a piece kind plus one (white king, queen, bishop,
+ *     knight, rook, pawn, then the same for black)</li>
+ *     <li>byte 32: bit 0 set when black is to move, bits 1-4 the castling rights</li>
+ *     <li>byte 33: en passant file plus one, or 0 when there is none</li>
+ *     <li>bytes 34-35: halfmove clock, big endian</li>
+ *     <li>bytes 36-37: fullmove number, big endian</li>
+ * </ul>
+ * Decoding an encoded game gives a game equal to it with the same {@link PositionState}
+ * and the same FEN. Move history and undo records aren't kept.
+ */
+public final class PositionCodec {
+    public static final int ENCODED_LENGTH = 38;
+
+    private static final int STATE_OFFSET = 32;
+    private static final ChessGame.TeamColor[] COLORS = ChessGame.TeamColor.values();
+
+    private PositionCodec() {
+    }
+
+    public static byte[] encode(ChessGame game) {
+        byte[] bytes = new byte[ENCODED_LENGTH];
+        encode(game, bytes, 0);
+        return bytes;
+    }
+
+    /**
+     * Writes the encoding into an existing buffer, so callers batching many games can
+     * reuse one array
+     *
+     * @param offset index of the first byte to write; {@value #ENCODED_LENGTH} bytes are written
+     */
+    public static void encode(ChessGame game, byte[] out, int offset) {
+        ChessBoard board = game.getBoard();
+        for (int square = 0; square < 64; square += 2) {
+            out[offset + (square >>> 1)] = (byte) (nibble(board.pieceAt(square)) | nibble(board.pieceAt(square + 1)) << 4);
+        }
+
+        PositionState state = game.getPositionState();
+        int at = offset + STATE_OFFSET;
+        out[at] = (byte) (game.getTeamTurn().ordinal() | state.getCastlingRights() << 1);
+        out[at + 1] = (byte) (state.getEnPassantFile() + 1);
+        out[at + 2] = (byte) (state.getHalfmoveClock() >>> 8);
+        out[at + 3] = (byte) state.getHalfmoveClock();
+        out[at + 4] = (byte) (state.getFullmoveNumber() >>> 8);
+        out[at + 5] = (byte) state.getFullmoveNumber();
+    }
+
+    public static ChessGame decode(byte[] bytes) {
+        if (bytes.length != ENCODED_LENGTH) {
+            throw new IllegalArgumentException("Encoded position must be " + ENCODED_LENGTH + " bytes, got " + bytes.length);
+        }
+        return decode(bytes, 0);
+    }
+
+    /**
+     * @param offset index of the first of {@value #ENCODED_LENGTH} bytes to read
+     * @throws IllegalArgumentException if the bytes aren't a valid encoding
+     */
+    public static ChessGame decode(byte[] bytes, int offset) {
+        if (offset < 0 || offset + ENCODED_LENGTH > bytes.length) {
+            throw new IllegalArgumentException("Encoded position runs past the end of the buffer");
+        }
+        ChessBoard board = new ChessBoard();
+        for (int square = 0; square < 64; square++) {
+            int packed = bytes[offset + (square >>> 1)];
+            int nibble = (square & 1) == 0 ? packed & 0xF : (packed >>> 4) & 0xF;
+            board.setPiece(square, piece(nibble));
+        }
+
+        int at = offset + STATE_OFFSET;
+        int flags = bytes[at] & 0xFF;
+        int enPassant = bytes[at + 1] & 0xFF;
+        if (flags > 0x1F || enPassant > 8) {
+            throw new IllegalArgumentException("Encoded position has invalid state bits");
+        }
+        int halfmoveClock = (bytes[at + 2] & 0xFF) << 8 | (bytes[at + 3] & 0xFF);
+        int fullmoveNumber = (bytes[at + 4] & 0xFF) << 8 | (bytes[at + 5] & 0xFF);
+
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn(COLORS[flags & 1]);
+        game.setPositionState(new PositionState(flags >>> 1, enPassant - 1, halfmoveClock, fullmoveNumber));
+        return game;
+    }
+
+    /**
+     * @return the encoding as base64 text, for JSON payloads and text columns
+     */
+    public static String encodeToString(ChessGame game) {
+        return Base64.getEncoder().encodeToString(encode(game));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the text isn't base64 of a valid encoding
+     */
+    public static ChessGame decodeFromString(String encoded) {
+        return decode(Base64.getDecoder().decode(encoded));
+    }
+
+    private static int nibble(ChessPiece piece) {
+        return piece == null ? 0 : Bitboards.kind(piece) + 1;
+    }
+
+    private static ChessPiece piece(int nibble) {
+        if (nibble == 0) {
+            return null;
+        }
+        if (nibble > Bitboards.KINDS) {
+            throw new IllegalArgumentException("Encoded position has invalid piece " + nibble);
+        }
+        return ChessPiece.of(nibble - 1);
+    }
+}
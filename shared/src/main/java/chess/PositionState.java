@@ -0,0 +1,108 @@
+package chess;
+
+import java.util.Objects;
+
+/**
+ * The part of a chess position that isn't on the board: which castles are still
+ * available, the file a pawn just skipped past with a two square move, and the
+ * halfmove clock and fullmove number.
+ * <p>
+ * {@link ChessGame} updates these fields in place as moves are made and unmade, so
+ * pieces carry no history of their own and two boards with the same pieces are the
+ * same board.
+ */
+public final class PositionState {
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+    public static final int ALL_CASTLING = 15;
+
+    public static final int NO_EN_PASSANT = -1;
+
+    // bitmask of the castles still available, see WHITE_KINGSIDE etc.
+    int castlingRights;
+    // file (0-7) of the square a pawn skipped over on the last turn, or NO_EN_PASSANT
+    int enPassantFile;
+    // moves since the last capture or pawn move
+    int halfmoveClock;
+    // starts at 1 and goes up after each black move
+    int fullmoveNumber;
+
+    /**
+     * Creates the state of a game that hasn't started: every castle available
+     */
+    public PositionState() {
+        this(ALL_CASTLING, NO_EN_PASSANT, 0, 1);
+    }
+
+    public PositionState(int castlingRights, int enPassantFile, int halfmoveClock, int fullmoveNumber) {
+        this.castlingRights = castlingRights;
+        this.enPassantFile = enPassantFile;
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = fullmoveNumber;
+    }
+
+    public PositionState(PositionState other) {
+        this(other.castlingRights, other.enPassantFile, other.halfmoveClock, other.fullmoveNumber);
+    }
+
+    /**
+     * @return bitmask of {@link #WHITE_KINGSIDE}, {@link #WHITE_QUEENSIDE},
+     * {@link #BLACK_KINGSIDE} and {@link #BLACK_QUEENSIDE}
+     */
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    public boolean canCastle(int right) {
+        return (castlingRights & right) != 0;
+    }
+
+    /**
+     * @return file index 0-7 (column - 1) of the en passant target, or {@link #NO_EN_PASSANT}
+     */
+    public int getEnPassantFile() {
+        return enPassantFile;
+    }
+
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * @param teamToMove the team that could capture en passant
+     * @return square index the capturing pawn would move to, or {@link ChessBoard#NO_SQUARE}
+     */
+    int enPassantSquare(ChessGame.TeamColor teamToMove) {
+        if (enPassantFile == NO_EN_PASSANT) {
+            return ChessBoard.NO_SQUARE;
+        }
+        return Bitboards.square(teamToMove == ChessGame.TeamColor.WHITE ? 6 : 3, enPassantFile + 1);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        PositionState that = (PositionState) o;
+        return castlingRights == that.castlingRights && enPassantFile == that.enPassantFile
+                && halfmoveClock == that.halfmoveClock && fullmoveNumber == that.fullmoveNumber;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(castlingRights, enPassantFile, halfmoveClock, fullmoveNumber);
+    }
+
+    @Override
+    public String toString() {
+        return "PositionState{castlingRights=" + castlingRights + ", enPassantFile=" + enPassantFile
+                + ", halfmoveClock=" + halfmoveClock + ", fullmoveNumber=" + fullmoveNumber + '}';
+    }
+}
@@ -1,27 +1,12 @@
 package chess;
 
-import java.util.ArrayList;
-import java.util.Collection;
-
-import static chess.MoveCalculatorUtils.slidingMoves;
+import static chess.MoveCalculatorUtils.targetMoves;
 
 public class QueenMovesCalculator implements PieceMovesCalculator {
     @Override
-    public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        Collection<ChessMove> validMoves = new ArrayList<>();
-
-        int[][] directions = {
-                {-1,  1},
-                {-1, -1},
-                { 1,  1},
-                { 1, -1},
-                { 1, 0 },
-                {-1, 0 },
-                { 0, 1 },
-                { 0,-1 }
-        };
+    public void pieceMoves(ChessBoard board, int square, MoveList moves) {
+        long targets = AttackTables.queenAttacks(square, board.bitboards().occupied);
 
-        slidingMoves(board, myPosition, directions, validMoves);
-        return validMoves;
+        targetMoves(board, square, targets, moves);
     }
 }
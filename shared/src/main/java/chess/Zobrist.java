@@ -0,0 +1,44 @@
+package chess;
+
+/**
+ * Random keys for Zobrist hashing. A position's key is the xor of one key per
+ * piece on its square, plus keys for the side to move, the castling rights and
+ * the en passant file, so every change to the position is a few xors to apply.
+ * <p>
+ * The keys come from a fixed seed, so a position hashes the same in every run.
+ */
+final class Zobrist {
+    static final long[][] PIECES = new long[Bitboards.KINDS][64];
+    static final long BLACK_TO_MOVE;
+    static final long[] CASTLING = new long[16];
+    static final long[] EN_PASSANT_FILE = new long[8];
+
+    private static long seed = 0x5A0B7157C4E55L;
+
+    static {
+        for (long[] kind : PIECES) {
+            for (int square = 0; square < 64; square++) {
+                kind[square] = next();
+            }
+        }
+        BLACK_TO_MOVE = next();
+        // no rights hashes to zero, so a bare board and a game without castling agree
+        for (int rights = 1; rights < CASTLING.length; rights++) {
+            CASTLING[rights] = next();
+        }
+        for (int file = 0; file < EN_PASSANT_FILE.length; file++) {
+            EN_PASSANT_FILE[file] = next();
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    // splitmix64
+    private static long next() {
+        long z = (seed += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -1,4 +1,7 @@
 package model;
 
-public class AuthData {
+/**
+ * An auth token and the user it was issued to
+ */
+public record AuthData(String authToken, String username) {
 }
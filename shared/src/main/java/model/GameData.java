@@ -1,4 +1,16 @@
 package model;
 
-public class GameData {
+import chess.ChessGame;
+
+/**
+ * A game as stored by the server: its players, name and current state
+ */
+public record GameData(int gameID, String whiteUsername, String blackUsername, String gameName, ChessGame game) {
+
+    /**
+     * @return a copy of this record holding a different game state
+     */
+    public GameData withGame(ChessGame game) {
+        return new GameData(gameID, whiteUsername, blackUsername, gameName, game);
+    }
 }
@@ -0,0 +1,201 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/**
+ * Checks threefold repetition, the fifty-move rule and insufficient material, and
+ * that the repetition counts and material totals follow moves, copies and
+ * serialization.
+ */
+public class DrawTests {
+
+    private static final List<String> KNIGHT_SHUFFLE = List.of("Nf3", "Nf6", "Ng1", "Ng8");
+
+    @Test
+    @DisplayName("Threefold Repetition")
+    public void threefoldRepetition() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals(1, game.repetitionCount());
+        play(game, KNIGHT_SHUFFLE);
+        Assertions.assertEquals(2, game.repetitionCount());
+        Assertions.assertEquals(ChessGame.GameStatus.ONGOING, game.getGameStatus());
+
+        play(game, KNIGHT_SHUFFLE.subList(0, 3));
+        Assertions.assertEquals(ChessGame.GameStatus.ONGOING, game.getGameStatus());
+        play(game, KNIGHT_SHUFFLE.subList(3, 4));
+        Assertions.assertEquals(3, game.repetitionCount());
+        Assertions.assertTrue(game.isThreefoldRepetition());
+        Assertions.assertEquals(ChessGame.GameStatus.DRAW_BY_REPETITION, game.getGameStatus());
+    }
+
+    @Test
+    @DisplayName("Lost Castling Rights Make A New Position")
+    public void castlingRightsDistinguishPositions() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        play(game, List.of("Ke2", "Ke7", "Ke1", "Ke8"));
+        Assertions.assertEquals(1, game.repetitionCount());
+        play(game, List.of("Ke2", "Ke7", "Ke1", "Ke8"));
+        Assertions.assertEquals(2, game.repetitionCount());
+    }
+
+    @Test
+    @DisplayName("Lookahead Doesn't Count Repetitions")
+    public void lookaheadDoesNotCountRepetitions() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, KNIGHT_SHUFFLE);
+        play(game, KNIGHT_SHUFFLE.subList(0, 3));
+
+        MoveList legal = new MoveList();
+        game.legalMoves(game.getTeamTurn(), legal);
+        int move = Notation.fromSan(game, "Ng8", legal);
+        game.makeMove(move);
+        game.unmakeMove();
+        Assertions.assertEquals(2, game.repetitionCount());
+        Assertions.assertEquals(ChessGame.GameStatus.ONGOING, game.getGameStatus());
+
+        play(game, List.of("Ng8"));
+        Assertions.assertEquals(3, game.repetitionCount());
+        Assertions.assertEquals(ChessGame.GameStatus.DRAW_BY_REPETITION, game.getGameStatus());
+    }
+
+    @Test
+    @DisplayName("Copies And Deserialized Games Keep Repetitions")
+    public void repetitionsSurviveCopies() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, KNIGHT_SHUFFLE);
+        play(game, KNIGHT_SHUFFLE);
+
+        Assertions.assertEquals(3, new ChessGame(game).repetitionCount());
+        Assertions.assertEquals(3, game.snapshot().repetitionCount());
+        Gson gson = new Gson();
+        ChessGame copy = gson.fromJson(gson.toJson(game), ChessGame.class);
+        Assertions.assertEquals(ChessGame.GameStatus.DRAW_BY_REPETITION, copy.getGameStatus());
+        Assertions.assertEquals(2, game.getMoveHistory().replay(4).repetitionCount());
+    }
+
+    @Test
+    @DisplayName("Copies Share Repetitions Until They Move")
+    public void copiesShareRepetitions() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, KNIGHT_SHUFFLE);
+        ChessGame snapshot = game.snapshot();
+        ChessGame copy = new ChessGame(game);
+
+        play(copy, KNIGHT_SHUFFLE);
+        Assertions.assertEquals(3, copy.repetitionCount());
+        Assertions.assertEquals(2, game.repetitionCount());
+        Assertions.assertEquals(2, snapshot.repetitionCount());
+
+        play(game, KNIGHT_SHUFFLE.subList(0, 2));
+        Assertions.assertEquals(2, game.repetitionCount());
+        Assertions.assertEquals(2, snapshot.repetitionCount());
+        Assertions.assertEquals(ChessGame.GameStatus.DRAW_BY_REPETITION, copy.getGameStatus());
+        Assertions.assertEquals(ChessGame.GameStatus.ONGOING, new ChessGame(snapshot).getGameStatus());
+    }
+
+    @Test
+    @DisplayName("Fifty Move Rule")
+    public void fiftyMoveRule() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/8/R3K3 w - - 99 80");
+        Assertions.assertFalse(game.isFiftyMoveRule());
+        play(game, List.of("Ra2"));
+        Assertions.assertTrue(game.isFiftyMoveRule());
+        Assertions.assertEquals(ChessGame.GameStatus.DRAW_BY_FIFTY_MOVES, game.getGameStatus());
+
+        ChessGame pawnMove = ChessGame.fromFen("4k3/8/8/8/8/8/P7/4K3 w - - 99 80");
+        play(pawnMove, List.of("a3"));
+        Assertions.assertEquals(ChessGame.GameStatus.ONGOING, pawnMove.getGameStatus());
+    }
+
+    @Test
+    @DisplayName("Checkmate On The Fiftieth Move Stands")
+    public void checkmateBeatsFiftyMoveRule() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 99 80");
+        play(game, List.of("Ra8#"));
+        Assertions.assertTrue(game.isFiftyMoveRule());
+        Assertions.assertEquals(ChessGame.GameStatus.CHECKMATE, game.getGameStatus());
+    }
+
+    @Test
+    @DisplayName("Insufficient Material")
+    public void insufficientMaterial() {
+        assertInsufficient(true, "4k3/8/8/8/8/8/8/4K3 w - - 0 1");
+        assertInsufficient(true, "4k3/8/8/8/8/8/8/2B1K3 w - - 0 1");
+        assertInsufficient(true, "4k3/8/8/8/8/8/8/1N2K3 b - - 0 1");
+        assertInsufficient(true, "4kb2/8/8/8/8/8/8/2B1K3 w - - 0 1");
+        assertInsufficient(false, "2b1k3/8/8/8/8/8/8/2B1K3 w - - 0 1");
+        assertInsufficient(false, "1n2k3/8/8/8/8/8/8/1N2K3 w - - 0 1");
+        assertInsufficient(false, "4k3/8/8/8/8/8/8/1NN1K3 w - - 0 1");
+        assertInsufficient(false, "4k3/8/8/8/8/8/P7/4K3 w - - 0 1");
+        assertInsufficient(false, "4k3/8/8/8/8/8/8/R3K3 w - - 0 1");
+        assertInsufficient(false, Fen.STARTING_POSITION);
+    }
+
+    @Test
+    @DisplayName("Capturing The Last Piece Draws")
+    public void captureLeavesInsufficientMaterial() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/4r3/2B1K3 w - - 0 1");
+        Assertions.assertEquals(ChessGame.GameStatus.CHECK, game.getGameStatus());
+        play(game, List.of("Kxe2"));
+        Assertions.assertEquals(ChessGame.GameStatus.DRAW_BY_INSUFFICIENT_MATERIAL, game.getGameStatus());
+    }
+
+    @Test
+    @DisplayName("Material Follows Moves")
+    public void materialFollowsMoves() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("2r1k3/1P6/8/8/8/8/8/4K3 w - - 0 1");
+        ChessBoard board = game.getBoard();
+        Assertions.assertEquals(100, board.getMaterial(ChessGame.TeamColor.WHITE));
+        Assertions.assertEquals(500, board.getMaterial(ChessGame.TeamColor.BLACK));
+
+        MoveList legal = new MoveList();
+        game.legalMoves(game.getTeamTurn(), legal);
+        game.makeMove(Notation.fromSan(game, "bxc8=Q", legal));
+        Assertions.assertEquals(900, board.getMaterial(ChessGame.TeamColor.WHITE));
+        Assertions.assertEquals(0, board.getMaterial(ChessGame.TeamColor.BLACK));
+        Assertions.assertEquals(900, board.snapshot().getMaterial(ChessGame.TeamColor.WHITE));
+
+        game.unmakeMove();
+        Assertions.assertEquals(100, board.getMaterial(ChessGame.TeamColor.WHITE));
+        Assertions.assertEquals(500, board.getMaterial(ChessGame.TeamColor.BLACK));
+        board.resetBoard();
+        Assertions.assertEquals(3900, board.getMaterial(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    @DisplayName("Snapshots Keep Their Own Repetitions")
+    public void snapshotsKeepRepetitions() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, KNIGHT_SHUFFLE);
+        ChessGame snapshot = game.snapshot();
+        ChessGame copy = new ChessGame(game);
+
+        play(game, KNIGHT_SHUFFLE);
+        play(copy, List.of("e4", "e5"));
+        Assertions.assertEquals(3, game.repetitionCount());
+        Assertions.assertEquals(2, snapshot.repetitionCount());
+        Assertions.assertEquals(1, copy.repetitionCount());
+
+        // long enough to outgrow the keys more than once; the pawn moves reset what can repeat
+        for (int i = 0; i < 10; i++) {
+            play(copy, KNIGHT_SHUFFLE);
+        }
+        Assertions.assertEquals(11, copy.repetitionCount());
+        Assertions.assertEquals(3, game.repetitionCount());
+    }
+
+    private static void assertInsufficient(boolean expected, String fen) {
+        Assertions.assertEquals(expected, ChessGame.fromFen(fen).isInsufficientMaterial(), fen);
+    }
+
+    private static void play(ChessGame game, List<String> sanMoves) throws InvalidMoveException {
+        for (String san : sanMoves) {
+            game.makeMove(Notation.fromSan(game, san));
+        }
+    }
+}
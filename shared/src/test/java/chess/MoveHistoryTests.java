@@ -0,0 +1,136 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks move history recording, UCI/SAN formatting and parsing, and replay
+ */
+public class MoveHistoryTests {
+
+    // Morphy vs Duke of Brunswick and Count Isouard, Paris 1858
+    private static final List<String> OPERA_GAME = List.of(
+            "e4", "e5", "Nf3", "d6", "d4", "Bg4", "dxe5", "Bxf3", "Qxf3", "dxe5",
+            "Bc4", "Nf6", "Qb3", "Qe7", "Nc3", "c6", "Bg5", "b5", "Nxb5", "cxb5",
+            "Bxb5+", "Nbd7", "O-O-O", "Rd8", "Rxd7", "Rxd7", "Rd1", "Qe6", "Bxd7+", "Nxd7",
+            "Qb8+", "Nxb8", "Rd8#");
+
+    @Test
+    @DisplayName("SAN Round Trip")
+    public void sanRoundTrip() throws InvalidMoveException {
+        ChessGame game = MoveHistory.replaySan(Fen.STARTING_POSITION, OPERA_GAME);
+
+        Assertions.assertEquals(OPERA_GAME, game.getMoveHistory().toSan());
+        Assertions.assertEquals(OPERA_GAME.size(), game.getMoveHistory().size());
+        Assertions.assertEquals(ChessGame.GameStatus.CHECKMATE, game.getGameStatus());
+    }
+
+    @Test
+    @DisplayName("UCI Round Trip")
+    public void uciRoundTrip() throws InvalidMoveException {
+        ChessGame game = MoveHistory.replaySan(Fen.STARTING_POSITION, OPERA_GAME);
+        List<String> uci = game.getMoveHistory().toUci();
+
+        Assertions.assertEquals("e2e4", uci.get(0));
+        Assertions.assertEquals("e1c1", uci.get(22));
+        ChessGame replayed = MoveHistory.replayUci(Fen.STARTING_POSITION, uci);
+        Assertions.assertEquals(game.toFen(), replayed.toFen());
+    }
+
+    @Test
+    @DisplayName("Replay Every Ply")
+    public void replayEveryPly() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        List<String> fens = new ArrayList<>();
+        fens.add(game.toFen());
+        for (String san : OPERA_GAME) {
+            game.makeMove(Notation.fromSan(game, san));
+            fens.add(game.toFen());
+        }
+
+        MoveHistory history = game.getMoveHistory();
+        for (int ply = 0; ply <= history.size(); ply++) {
+            ChessGame replayed = history.replay(ply);
+            Assertions.assertEquals(fens.get(ply), replayed.toFen(), "Wrong position at ply " + ply);
+            Assertions.assertEquals(ply, replayed.getMoveHistory().size());
+        }
+    }
+
+    @Test
+    @DisplayName("Replayed Game Can Branch")
+    public void replayedGameBranches() throws InvalidMoveException {
+        ChessGame game = MoveHistory.replaySan(Fen.STARTING_POSITION, OPERA_GAME);
+        ChessGame branch = game.getMoveHistory().replay(2);
+        branch.makeMove(Notation.fromSan(branch, "Nc3"));
+
+        Assertions.assertEquals(List.of("e4", "e5", "Nc3"), branch.getMoveHistory().toSan());
+        Assertions.assertEquals(OPERA_GAME, game.getMoveHistory().toSan());
+    }
+
+    @Test
+    @DisplayName("History Survives Serialization")
+    public void serializedHistory() throws InvalidMoveException {
+        ChessGame game = MoveHistory.replaySan(Fen.STARTING_POSITION, OPERA_GAME);
+        Gson gson = new Gson();
+        ChessGame copy = gson.fromJson(gson.toJson(game), ChessGame.class);
+
+        Assertions.assertEquals(game.getMoveHistory().toUci(), copy.getMoveHistory().toUci());
+        Assertions.assertEquals(game.toFen(), copy.getMoveHistory().replay().toFen());
+        Assertions.assertEquals(game.getMoveHistory().replay(5).toFen(), copy.getMoveHistory().replay(5).toFen());
+    }
+
+    @Test
+    @DisplayName("Setting The Position Starts A New History")
+    public void setBoardResetsHistory() throws InvalidMoveException {
+        ChessGame game = MoveHistory.replaySan(Fen.STARTING_POSITION, OPERA_GAME);
+        game.setBoard(ChessBoard.fromFen("4k3/8/8/8/8/8/8/4K3"));
+
+        Assertions.assertEquals(0, game.getMoveHistory().size());
+        Assertions.assertEquals("4k3/8/8/8/8/8/8/4K3 b - - 0 1", game.getMoveHistory().getStartFen());
+    }
+
+    @Test
+    @DisplayName("SAN Special Moves")
+    public void sanSpecialMoves() throws InvalidMoveException {
+        ChessGame enPassant = ChessGame.fromFen("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1");
+        assertSan(enPassant, "exd6", 5, 5, 6, 4, null);
+
+        ChessGame promotion = ChessGame.fromFen("4k3/1P6/8/8/8/8/8/4K3 w - - 0 1");
+        assertSan(promotion, "b8=Q+", 7, 2, 8, 2, ChessPiece.PieceType.QUEEN);
+        Assertions.assertEquals(Notation.fromSan(promotion, "b8=Q+"), Notation.fromSan(promotion, "b8Q"));
+
+        ChessGame rooks = ChessGame.fromFen("4k3/8/8/R7/8/8/8/R3K2R w K - 0 1");
+        assertSan(rooks, "R1a3", 1, 1, 3, 1, null);
+        assertSan(rooks, "Rd1", 1, 1, 1, 4, null);
+        assertSan(rooks, "O-O", 1, 5, 1, 7, null);
+        Assertions.assertThrows(InvalidMoveException.class, () -> Notation.fromSan(rooks, "Ra3"));
+        Assertions.assertThrows(InvalidMoveException.class, () -> Notation.fromSan(rooks, "Nf3"));
+
+        ChessGame sameRank = ChessGame.fromFen("4k3/8/8/8/8/8/8/R4RK1 w - - 0 1");
+        assertSan(sameRank, "Rad1", 1, 1, 1, 4, null);
+        assertSan(sameRank, "Rfd1", 1, 6, 1, 4, null);
+    }
+
+    @Test
+    @DisplayName("UCI Parsing")
+    public void uciParsing() {
+        Assertions.assertEquals(new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 1), ChessPiece.PieceType.KNIGHT),
+                Notation.fromUci("a7a8n"));
+        Assertions.assertEquals("a7a8n", Notation.toUci(Notation.fromUci("a7a8n")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Notation.fromUci("e2e9"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Notation.fromUci("e2e4k"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Notation.fromUci("e2"));
+    }
+
+    private static void assertSan(ChessGame game, String san, int startRow, int startCol, int endRow, int endCol,
+                                  ChessPiece.PieceType promotion) throws InvalidMoveException {
+        ChessMove move = new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), promotion);
+        Assertions.assertEquals(san, Notation.toSan(game, move));
+        Assertions.assertEquals(move, Notation.fromSan(game, san));
+    }
+}
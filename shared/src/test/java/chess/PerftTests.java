@@ -0,0 +1,155 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks move generation against published perft node counts. Any missing or
+ * extra legal move anywhere in the tree changes the count, so these catch
+ * mistakes the per-piece tests can't, such as pins, en passant discoveries,
+ * castling through check and promotions.
+ */
+public class PerftTests {
+
+    @Test
+    @DisplayName("Starting Position")
+    public void startingPosition() {
+        ChessGame game = ChessGame.fromFen("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+        assertPerft(game, 20, 400, 8902, 197281);
+    }
+
+    @Test
+    @DisplayName("Kiwipete")
+    public void kiwipete() {
+        ChessGame game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        assertPerft(game, 48, 2039, 97862);
+    }
+
+    @Test
+    @DisplayName("Rook Endgame With Discovered Checks")
+    public void rookEndgame() {
+        ChessGame game = ChessGame.fromFen("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1");
+        assertPerft(game, 14, 191, 2812, 43238, 674624);
+    }
+
+    @Test
+    @DisplayName("Promotions And Castling")
+    public void promotionsAndCastling() {
+        ChessGame game = ChessGame.fromFen("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1");
+        assertPerft(game, 6, 264, 9467);
+    }
+
+    @Test
+    @DisplayName("Promotion With Capture")
+    public void promotionWithCapture() {
+        ChessGame game = ChessGame.fromFen("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 0 1");
+        assertPerft(game, 44, 1486, 62379);
+    }
+
+    @Test
+    @DisplayName("Symmetric Middlegame")
+    public void middlegame() {
+        ChessGame game = ChessGame.fromFen("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 1");
+        assertPerft(game, 46, 2079, 89890);
+    }
+
+    @Test
+    @DisplayName("En Passant Cannot Expose King")
+    public void enPassantExposesKing() {
+        ChessGame game = ChessGame.fromFen("3k4/3p4/8/K1P4r/8/8/8/8 b - - 0 1");
+        assertPerftAtDepth(game, 6, 1134888);
+    }
+
+    @Test
+    @DisplayName("En Passant Cannot Uncover Check On A Diagonal")
+    public void enPassantUncoversDiagonal() {
+        ChessGame game = ChessGame.fromFen("8/5bk1/8/2Pp4/8/1K6/8/8 w - d6 0 1");
+        assertPerftAtDepth(game, 6, 824064);
+    }
+
+    @Test
+    @DisplayName("En Passant Capture Gives Check")
+    public void enPassantGivesCheck() {
+        ChessGame game = ChessGame.fromFen("8/8/1k6/2b5/2pP4/8/5K2/8 b - d3 0 1");
+        assertPerftAtDepth(game, 6, 1440467);
+    }
+
+    @Test
+    @DisplayName("En Passant Cannot Break Diagonal Pin")
+    public void enPassantDiagonalPin() {
+        ChessGame game = ChessGame.fromFen("8/8/4k3/8/2p5/8/B2P2K1/8 w - - 0 1");
+        assertPerftAtDepth(game, 6, 1015133);
+    }
+
+    @Test
+    @DisplayName("Promotion Gives Check")
+    public void promoteWithCheck() {
+        ChessGame game = ChessGame.fromFen("4k3/1P6/8/8/8/8/K7/8 w - - 0 1");
+        assertPerftAtDepth(game, 6, 217342);
+    }
+
+    @Test
+    @DisplayName("Underpromotion Gives Check")
+    public void underpromoteWithCheck() {
+        ChessGame game = ChessGame.fromFen("8/P1k5/K7/8/8/8/8/8 w - - 0 1");
+        assertPerftAtDepth(game, 6, 92683);
+    }
+
+    @Test
+    @DisplayName("Promote Out Of Check")
+    public void promoteOutOfCheck() {
+        ChessGame game = ChessGame.fromFen("2K2r2/4P3/8/8/8/8/8/3k4 w - - 0 1");
+        assertPerftAtDepth(game, 6, 3821001);
+    }
+
+    @Test
+    @DisplayName("Self Stalemate")
+    public void selfStalemate() {
+        ChessGame game = ChessGame.fromFen("K1k5/8/P7/8/8/8/8/8 w - - 0 1");
+        assertPerftAtDepth(game, 6, 2217);
+    }
+
+    @Test
+    @DisplayName("Stalemate And Checkmate")
+    public void stalemateAndCheckmate() {
+        ChessGame game = ChessGame.fromFen("8/k1P5/8/1K6/8/8/8/8 w - - 0 1");
+        assertPerftAtDepth(game, 7, 567584);
+    }
+
+    @Test
+    @DisplayName("Double Check")
+    public void doubleCheck() {
+        ChessGame game = ChessGame.fromFen("8/8/2k5/5q2/5n2/8/5K2/8 b - - 0 1");
+        assertPerftAtDepth(game, 4, 23527);
+    }
+
+    @Test
+    @DisplayName("Castling Rights")
+    public void castlingRights() {
+        ChessGame game = ChessGame.fromFen("r3k2r/1b4bq/8/8/8/8/7B/R3K2R w KQkq - 0 1");
+        assertPerftAtDepth(game, 4, 1274206);
+    }
+
+    @Test
+    @DisplayName("Castling Prevented")
+    public void castlingPrevented() {
+        ChessGame game = ChessGame.fromFen("r3k2r/8/3Q4/8/8/5q2/8/R3K2R b KQkq - 0 1");
+        assertPerftAtDepth(game, 4, 1720476);
+    }
+
+    /**
+     * Asserts the node count at every depth from 1 up to expectedNodes.length
+     */
+    private void assertPerft(ChessGame game, long... expectedNodes) {
+        for (int depth = 1; depth <= expectedNodes.length; depth++) {
+            assertPerftAtDepth(game, depth, expectedNodes[depth - 1]);
+        }
+    }
+
+    private void assertPerftAtDepth(ChessGame game, int depth, long expectedNodes) {
+        long positionKey = game.positionKey();
+        Assertions.assertEquals(expectedNodes, new Perft(game).count(depth), "Wrong perft count at depth " + depth);
+        Assertions.assertEquals(positionKey, game.positionKey(), "Perft did not restore the position");
+    }
+}
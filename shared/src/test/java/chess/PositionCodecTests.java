@@ -0,0 +1,84 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that every position survives a trip through {@link PositionCodec} unchanged
+ */
+public class PositionCodecTests {
+
+    private static final String[] POSITIONS = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            "8/8/1k6/2b5/2pP4/8/5K2/8 b - d3 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 49 300",
+    };
+
+    @Test
+    @DisplayName("Round Trip")
+    public void roundTrip() {
+        for (String fen : POSITIONS) {
+            assertRoundTrip(ChessGame.fromFen(fen));
+        }
+    }
+
+    @Test
+    @DisplayName("Round Trip After Every Move")
+    public void roundTripAfterMoves() {
+        // walk two plies from each position so captures, promotions, castling and
+        // en passant squares all show up in the encoded state
+        for (String fen : POSITIONS) {
+            ChessGame game = ChessGame.fromFen(fen);
+            MoveList first = new MoveList();
+            MoveList second = new MoveList();
+            game.legalMoves(game.getTeamTurn(), first);
+            for (int i = 0; i < first.size(); i++) {
+                game.makeMove(first.get(i));
+                assertRoundTrip(game);
+                game.legalMoves(game.getTeamTurn(), second);
+                for (int j = 0; j < second.size(); j++) {
+                    game.makeMove(second.get(j));
+                    assertRoundTrip(game);
+                    game.unmakeMove();
+                }
+                game.unmakeMove();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Base64 Round Trip")
+    public void base64RoundTrip() {
+        ChessGame game = ChessGame.fromFen(POSITIONS[1]);
+        String encoded = PositionCodec.encodeToString(game);
+        Assertions.assertEquals(POSITIONS[1], PositionCodec.decodeFromString(encoded).toFen());
+    }
+
+    @Test
+    @DisplayName("Invalid Encodings Are Rejected")
+    public void invalidEncodings() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PositionCodec.decode(new byte[10]));
+
+        byte[] badPiece = PositionCodec.encode(new ChessGame());
+        badPiece[20] = (byte) 0xDD;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PositionCodec.decode(badPiece));
+
+        byte[] badEnPassant = PositionCodec.encode(new ChessGame());
+        badEnPassant[33] = 9;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PositionCodec.decode(badEnPassant));
+    }
+
+    private static void assertRoundTrip(ChessGame game) {
+        byte[] encoded = PositionCodec.encode(game);
+        Assertions.assertEquals(PositionCodec.ENCODED_LENGTH, encoded.length);
+
+        ChessGame decoded = PositionCodec.decode(encoded);
+        Assertions.assertEquals(game, decoded);
+        Assertions.assertEquals(game.getPositionState(), decoded.getPositionState());
+        Assertions.assertEquals(game.toFen(), decoded.toFen());
+        Assertions.assertEquals(game.positionKey(), decoded.positionKey());
+    }
+}
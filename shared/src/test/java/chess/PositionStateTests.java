@@ -0,0 +1,132 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+/**
+ * Checks that castling rights, the en passant file and the move counters follow
+ * the moves made, come back on unmake, and survive serialization.
+ */
+public class PositionStateTests {
+
+    @Test
+    @DisplayName("Counters And En Passant File Follow Moves")
+    public void countersFollowMoves() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(move(2, 5, 4, 5));
+        Assertions.assertEquals(new PositionState(PositionState.ALL_CASTLING, 4, 0, 1), game.getPositionState());
+
+        game.makeMove(move(8, 7, 6, 6));
+        Assertions.assertEquals(new PositionState(PositionState.ALL_CASTLING, PositionState.NO_EN_PASSANT, 1, 2),
+                game.getPositionState());
+
+        game.makeMove(move(1, 5, 2, 5));
+        Assertions.assertEquals(new PositionState(PositionState.BLACK_KINGSIDE | PositionState.BLACK_QUEENSIDE,
+                PositionState.NO_EN_PASSANT, 2, 2), game.getPositionState());
+    }
+
+    @Test
+    @DisplayName("Unmake Restores State")
+    public void unmakeRestoresState() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(move(2, 4, 4, 4));
+        game.makeMove(move(8, 7, 6, 6));
+        PositionState before = new PositionState(game.getPositionState());
+        long keyBefore = game.positionKey();
+
+        // only moves made without the legality check keep an undo record
+        game.makeMove(PackedMove.encode(move(1, 5, 2, 4)));
+        Assertions.assertNotEquals(before, game.getPositionState());
+        game.unmakeMove();
+
+        Assertions.assertEquals(before, game.getPositionState());
+        Assertions.assertEquals(keyBefore, game.positionKey());
+    }
+
+    @Test
+    @DisplayName("Castling Rights Come From The Board")
+    public void castlingRightsFromBoard() {
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(1, 5), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(1, 1), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        board.addPiece(new ChessPosition(8, 4), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(8, 8), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+
+        Assertions.assertEquals(PositionState.WHITE_QUEENSIDE, game.getPositionState().getCastlingRights());
+    }
+
+    @Test
+    @DisplayName("State Survives Serialization")
+    public void serializationKeepsState() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(move(2, 5, 4, 5));
+        game.makeMove(move(7, 1, 6, 1));
+        game.makeMove(move(4, 5, 5, 5));
+        game.makeMove(move(7, 4, 5, 4));
+
+        Gson gson = new Gson();
+        ChessGame copy = gson.fromJson(gson.toJson(game), ChessGame.class);
+
+        Assertions.assertEquals(game.getPositionState(), copy.getPositionState());
+        Assertions.assertEquals(game, copy);
+        Assertions.assertEquals(game.positionKey(), copy.positionKey());
+        Assertions.assertTrue(copy.validMoves(new ChessPosition(5, 5))
+                .contains(new ChessMove(new ChessPosition(5, 5), new ChessPosition(6, 4), null)));
+    }
+
+    @Test
+    @DisplayName("Setting Position Drops Undo Records")
+    public void settingPositionDropsUndo() {
+        ChessGame game = new ChessGame();
+        game.makeMove(PackedMove.encode(move(2, 5, 4, 5)));
+        game.setTeamTurn(ChessGame.TeamColor.WHITE);
+        Assertions.assertThrows(IllegalStateException.class, game::unmakeMove);
+
+        game.makeMove(PackedMove.encode(move(2, 4, 4, 4)));
+        game.setPositionState(new PositionState());
+        Assertions.assertThrows(IllegalStateException.class, game::unmakeMove);
+    }
+
+    @Test
+    @DisplayName("Board Serializes Only Its Pieces")
+    public void boardSerializesOnlyPieces() {
+        Gson gson = new Gson();
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+
+        JsonObject json = gson.toJsonTree(board).getAsJsonObject();
+        Assertions.assertEquals(Set.of("squares"), json.keySet());
+
+        // derived fields in the payload are ignored and rebuilt from the pieces
+        json.addProperty("zobristKey", 42L);
+        json.add("material", gson.toJsonTree(new int[]{0, 0}));
+        ChessBoard copy = gson.fromJson(json, ChessBoard.class);
+        Assertions.assertEquals(board, copy);
+        Assertions.assertEquals(board.zobristKey(), copy.zobristKey());
+        Assertions.assertEquals(board.getMaterial(ChessGame.TeamColor.WHITE), copy.getMaterial(ChessGame.TeamColor.WHITE));
+        Assertions.assertSame(board.getPiece(new ChessPosition(1, 5)), copy.getPiece(new ChessPosition(1, 5)));
+    }
+
+    @Test
+    @DisplayName("Malformed Board Is Refused")
+    public void malformedBoardIsRefused() {
+        Gson gson = new Gson();
+        Assertions.assertThrows(JsonParseException.class,
+                () -> gson.fromJson("{\"squares\":[null]}", ChessBoard.class));
+        Assertions.assertThrows(JsonParseException.class,
+                () -> gson.fromJson("{}", ChessBoard.class));
+    }
+
+    private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+        return new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null);
+    }
+}
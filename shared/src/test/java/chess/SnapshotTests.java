@@ -0,0 +1,126 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Checks that board and game snapshots keep the position they were taken at and
+ * can be read but not changed
+ */
+public class SnapshotTests {
+
+    @Test
+    @DisplayName("Snapshot Keeps Its Position")
+    public void snapshotUnaffectedByMoves() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        ChessGame snapshot = game.snapshot();
+        String fen = snapshot.toFen();
+
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 4), new ChessPosition(5, 4), null));
+
+        Assertions.assertEquals(fen, snapshot.toFen());
+        Assertions.assertEquals(new ChessGame(), snapshot);
+        Assertions.assertNotEquals(game, snapshot);
+    }
+
+    @Test
+    @DisplayName("Snapshot Can Be Read")
+    public void snapshotIsReadable() {
+        // en passant and a pinned piece exercise the paths that probe king safety
+        ChessGame game = ChessGame.fromFen("8/8/8/KPp4r/8/8/8/4k3 w - c6 0 1");
+        ChessGame snapshot = game.snapshot();
+
+        Assertions.assertEquals(game.validMoves(new ChessPosition(5, 2)), snapshot.validMoves(new ChessPosition(5, 2)));
+        Assertions.assertEquals(game.getGameStatus(), snapshot.getGameStatus());
+        Assertions.assertEquals(game.positionKey(), snapshot.positionKey());
+        Assertions.assertSame(snapshot, snapshot.snapshot());
+    }
+
+    @Test
+    @DisplayName("Snapshot Rejects Changes")
+    public void snapshotIsReadOnly() {
+        ChessGame snapshot = new ChessGame().snapshot();
+        ChessBoard board = snapshot.getBoard();
+        ChessMove move = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> snapshot.makeMove(move));
+        Assertions.assertThrows(UnsupportedOperationException.class,
+                () -> snapshot.setTeamTurn(ChessGame.TeamColor.BLACK));
+        Assertions.assertThrows(UnsupportedOperationException.class, board::resetBoard);
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> board.addPiece(new ChessPosition(4, 4),
+                new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN)));
+        Assertions.assertEquals(new ChessGame(), snapshot);
+    }
+
+    @Test
+    @DisplayName("Copies Are Independent")
+    public void copiesAreIndependent() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 3 20");
+        ChessGame copy = new ChessGame(game);
+        copy.makeMove(new ChessMove(new ChessPosition(1, 5), new ChessPosition(1, 7), null));
+
+        Assertions.assertEquals("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 3 20", game.toFen());
+        Assertions.assertEquals("r3k2r/8/8/8/8/8/8/R4RK1 b kq - 4 20", copy.toFen());
+
+        ChessGame fromSnapshot = new ChessGame();
+        fromSnapshot.setBoard(game.getBoard().snapshot());
+        fromSnapshot.makeMove(new ChessMove(new ChessPosition(1, 1), new ChessPosition(1, 4), null));
+        Assertions.assertEquals("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 3 20", game.toFen());
+    }
+
+    @Test
+    @DisplayName("Snapshot Read From Many Threads")
+    public void snapshotReadConcurrently() throws Exception {
+        ChessGame snapshot = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1")
+                .snapshot();
+        Map<ChessPosition, Collection<ChessMove>> expected = new HashMap<>();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition square = new ChessPosition(row, col);
+                ChessPiece piece = snapshot.getBoard().getPiece(square);
+                if (piece != null && piece.getTeamColor() == snapshot.getTeamTurn()) {
+                    expected.put(square, new HashSet<>(snapshot.validMoves(square)));
+                }
+            }
+        }
+        ChessGame.GameStatus status = snapshot.getGameStatus();
+
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> readers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                readers.add(threads.submit(() -> {
+                    int wrong = 0;
+                    for (int i = 0; i < 2000; i++) {
+                        for (Map.Entry<ChessPosition, Collection<ChessMove>> entry : expected.entrySet()) {
+                            if (!entry.getValue().equals(new HashSet<>(snapshot.validMoves(entry.getKey())))) {
+                                wrong++;
+                            }
+                        }
+                        if (snapshot.getGameStatus() != status || snapshot.isInCheckmate(snapshot.getTeamTurn())) {
+                            wrong++;
+                        }
+                    }
+                    return wrong;
+                }));
+            }
+            for (Future<Integer> reader : readers) {
+                Assertions.assertEquals(0, (int) reader.get());
+            }
+        } finally {
+            threads.shutdown();
+        }
+    }
+}